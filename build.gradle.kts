@@ -1,11 +1,19 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.imagineforgee"
 version = "0.0.1"
 var opusVersions = "1.1.1"
 
+java {
+    // virtual threads back the command executor
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
 repositories {
     mavenCentral()
     maven { url = uri("https://dl.cloudsmith.io/public/clawsoftstudios/purffectlib/maven/") }
@@ -29,6 +37,28 @@ dependencies {
     implementation("club.minnced:opus-java-api:${opusVersions}")
     implementation("club.minnced:opus-java-natives:${opusVersions}")
     implementation("club.minnced:opus-java:${opusVersions}")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// Copies the latest results over the committed baseline so hot-path changes can be diffed against it.
+tasks.register<Copy>("jmhBaseline") {
+    dependsOn("jmh")
+    from(layout.buildDirectory.file("results/jmh/results.json"))
+    into(layout.projectDirectory.dir("src/jmh/baseline"))
 }
 
 tasks.jar {
@@ -5,7 +5,7 @@ import com.clawsoftstudios.purrfectlib.scanner.CommandScanner;
 import com.github.imagineforgee.client.UserBotClient;
 import com.github.imagineforgee.client.VoiceClient;
 import com.github.imagineforgee.voice.LavaPlayer;
-import com.github.imagineforgee.voice.VoiceMode;
+import com.github.imagineforgee.voice.MixingPlayer;
 import com.google.gson.*;
 import reactor.core.publisher.Mono;
 
@@ -18,9 +18,15 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         String userToken = null;
+        int eventLanes = 0; // one lane per core
+        boolean commandsOnly = false;
         for (String arg : args) {
             if (arg.startsWith("--token=")) {
                 userToken = arg.substring("--token=".length());
+            } else if (arg.startsWith("--event-lanes=")) {
+                eventLanes = Integer.parseInt(arg.substring("--event-lanes=".length()));
+            } else if (arg.equals("--commands-only")) {
+                commandsOnly = true;
             }
         }
         if (userToken == null || userToken.isEmpty()) {
@@ -30,8 +36,12 @@ public class Main {
 
         // scan your commands
         List<CommandInfo> commands = scanner.scanCommands();
-        bot = new UserBotClient(userToken);
+        bot = new UserBotClient(userToken, eventLanes);
         bot.registerCommands(commands);
+        if (commandsOnly) {
+            // drops every other message before it's parsed; onMessageCreate() subscribers won't see them
+            bot.setMessageFilter(bot.commandMessageFilter());
+        }
 
         // build the poll payload
         JsonObject payload = new JsonObject();
@@ -93,9 +103,8 @@ public class Main {
                 .subscribe();
 
         VoiceClient voiceClient = bot.getVoiceClient();
-        VoiceMode lavaMode = new LavaPlayer(voiceClient.getUdpStreamer());
-        voiceClient.registerVoiceMode("lava", lavaMode);
-        voiceClient.switchToVoiceMode("lava");
-        lavaMode.setVoiceClient(voiceClient);
+        voiceClient.registerVoiceMode("lava", LavaPlayer::new);
+        voiceClient.registerVoiceMode("mix", MixingPlayer::new);
+        voiceClient.setDefaultVoiceMode("lava");
     }
 }
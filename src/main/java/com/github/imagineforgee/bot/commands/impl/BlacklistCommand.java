@@ -4,6 +4,7 @@ import com.clawsoftstudios.purrfectlib.annotations.Command;
 import com.github.imagineforgee.bot.util.Blacklist;
 import com.github.imagineforgee.commands.CommandArgs;
 import com.github.imagineforgee.commands.CommandContext;
+import com.github.imagineforgee.util.Snowflake;
 
 @Command(name = "blacklist", description = "Manage blacklist for users and guilds", group = "admin")
 public class BlacklistCommand {
@@ -28,6 +29,11 @@ public class BlacklistCommand {
             return;
         }
 
+        if (Snowflake.parse(id) == 0) {
+            ctx.reply("❌ Invalid id: " + id);
+            return;
+        }
+
         switch (action.toLowerCase()) {
             case "add" -> {
                 if (type.equalsIgnoreCase("user")) {
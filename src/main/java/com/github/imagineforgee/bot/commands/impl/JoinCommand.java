@@ -20,7 +20,7 @@ public class JoinCommand {
 
         ctx.getBot().getVoiceClient()
                 .joinAndConnect(ctx.getGuildId(), vcId)
-                .then(Mono.fromRunnable(() -> ctx.getBot().getVoiceClient().switchToVoiceMode("lava")))
+                .then(Mono.fromRunnable(() -> ctx.getBot().getVoiceClient().switchToVoiceMode(ctx.getGuildId(), "lava")))
                 .doOnSuccess(v -> ctx.reply("✅ Joined voice channel!"))
                 .doOnError(e -> ctx.reply("❌ Failed to join: " + e.getMessage()))
                 .subscribe();
@@ -1,12 +1,14 @@
 package com.github.imagineforgee.bot.commands.impl;
 
 import com.clawsoftstudios.purrfectlib.annotations.Command;
+import com.github.imagineforgee.commands.Aliases;
 import com.github.imagineforgee.commands.CommandArgs;
 import com.github.imagineforgee.commands.CommandContext;
 import com.github.imagineforgee.client.UserBotClient;
 import com.github.imagineforgee.client.VoiceClient;
 
 @Command(name = "play", description = "Play a song", group = "music")
+@Aliases("p")
 public class PlayCommand {
 
     public void execute(CommandArgs args, CommandContext ctx) {
@@ -22,6 +24,6 @@ public class PlayCommand {
 
         VoiceClient voiceClient = ctx.getBot().getVoiceClient();
         ctx.reply("🎶 Playing: " + song + (loop ? " (looping)" : ""));
-        voiceClient.playTrack(song);
+        voiceClient.playTrack(ctx.getGuildId(), song);
     }
 }
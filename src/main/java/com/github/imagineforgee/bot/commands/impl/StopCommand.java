@@ -9,7 +9,7 @@ import com.github.imagineforgee.commands.CommandContext;
 public class StopCommand {
     public void execute(CommandArgs args, CommandContext ctx) {
         VoiceClient voiceClient = ctx.getBot().getVoiceClient();
-        voiceClient.stop();
+        voiceClient.stop(ctx.getGuildId());
         ctx.reply("⏹️ Stopped playback.");
     }
 }
@@ -3,6 +3,8 @@ package com.github.imagineforgee.bot.util;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.imagineforgee.bot.util.BlacklistData;
+import com.github.imagineforgee.util.LongLongMap;
+import com.github.imagineforgee.util.Snowflake;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
@@ -11,16 +13,18 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.time.Duration;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class Blacklist {
     private static final File FILE = new File("blacklist.json");
     private static final ObjectMapper mapper = new ObjectMapper()
             .enable(SerializationFeature.INDENT_OUTPUT);
 
-    private static final Set<String> blacklistedUsers = ConcurrentHashMap.newKeySet();
-    private static final Set<String> blacklistedGuilds = ConcurrentHashMap.newKeySet();
+    // used as sets: the value is always PRESENT
+    private static final long PRESENT = 1;
+    private static final LongLongMap blacklistedUsers = new LongLongMap();
+    private static final LongLongMap blacklistedGuilds = new LongLongMap();
 
     private static final reactor.core.scheduler.Scheduler ioScheduler = Schedulers.boundedElastic();
 
@@ -32,48 +36,76 @@ public class Blacklist {
         watchSaveTrigger();
     }
 
+    public static boolean isUserBlacklisted(long userId) {
+        return userId != 0 && blacklistedUsers.containsKey(userId);
+    }
+
+    public static boolean isGuildBlacklisted(long guildId) {
+        return guildId != 0 && blacklistedGuilds.containsKey(guildId);
+    }
+
     public static boolean isUserBlacklisted(String userId) {
-        return userId != null && blacklistedUsers.contains(userId);
+        return isUserBlacklisted(Snowflake.parse(userId));
     }
 
     public static boolean isGuildBlacklisted(String guildId) {
-        return guildId != null && blacklistedGuilds.contains(guildId);
+        return isGuildBlacklisted(Snowflake.parse(guildId));
     }
 
     public static void addUser(String userId) {
-        if (userId != null && blacklistedUsers.add(userId)) {
-            triggerSave();
-        }
+        add(blacklistedUsers, userId);
     }
 
     public static void removeUser(String userId) {
-        if (userId != null && blacklistedUsers.remove(userId)) {
-            triggerSave();
-        }
+        remove(blacklistedUsers, userId);
     }
 
     public static void addGuild(String guildId) {
-        if (guildId != null && blacklistedGuilds.add(guildId)) {
-            triggerSave();
-        }
+        add(blacklistedGuilds, guildId);
     }
 
     public static void removeGuild(String guildId) {
-        if (guildId != null && blacklistedGuilds.remove(guildId)) {
-            triggerSave();
-        }
+        remove(blacklistedGuilds, guildId);
     }
 
     public static Set<String> getBlacklistedUsers() {
-        return Set.copyOf(blacklistedUsers);
+        return toStrings(blacklistedUsers);
     }
 
     public static Set<String> getBlacklistedGuilds() {
-        return Set.copyOf(blacklistedGuilds);
+        return toStrings(blacklistedGuilds);
     }
 
     // === Internals ===
 
+    private static void add(LongLongMap ids, String id) {
+        long parsed = Snowflake.parse(id);
+        if (parsed != 0 && ids.put(parsed, PRESENT, 0) == 0) {
+            triggerSave();
+        }
+    }
+
+    private static void remove(LongLongMap ids, String id) {
+        long parsed = Snowflake.parse(id);
+        if (parsed != 0 && ids.remove(parsed)) {
+            triggerSave();
+        }
+    }
+
+    private static Set<String> toStrings(LongLongMap ids) {
+        Set<String> strings = new HashSet<>();
+        ids.forEach((id, present) -> strings.add(Snowflake.format(id)));
+        return Set.copyOf(strings);
+    }
+
+    private static void loadInto(LongLongMap ids, Iterable<String> source) {
+        for (String id : source) {
+            long parsed = Snowflake.parse(id);
+            if (parsed != 0) ids.put(parsed, PRESENT);
+            else System.err.println("⚠️ Ignoring invalid id in blacklist.json: " + id);
+        }
+    }
+
     private static void triggerSave() {
         saveSink.tryEmitNext("save");
     }
@@ -91,8 +123,8 @@ public class Blacklist {
             BlacklistData data = mapper.readValue(FILE, BlacklistData.class);
             blacklistedUsers.clear();
             blacklistedGuilds.clear();
-            blacklistedUsers.addAll(data.users);
-            blacklistedGuilds.addAll(data.guilds);
+            loadInto(blacklistedUsers, data.users);
+            loadInto(blacklistedGuilds, data.guilds);
             System.out.println("✅ Loaded blacklist.json with " +
                     blacklistedUsers.size() + " users, " +
                     blacklistedGuilds.size() + " guilds.");
@@ -104,8 +136,8 @@ public class Blacklist {
     private static void doSave() {
         try {
             BlacklistData data = new BlacklistData();
-            data.users.addAll(blacklistedUsers);
-            data.guilds.addAll(blacklistedGuilds);
+            data.users.addAll(getBlacklistedUsers());
+            data.guilds.addAll(getBlacklistedGuilds());
             mapper.writeValue(FILE, data);
             System.out.println("💾 blacklist.json saved.");
         } catch (IOException e) {
@@ -3,16 +3,23 @@ package com.github.imagineforgee.client;
 import com.clawsoftstudios.purrfectlib.scanner.CommandInfo;
 import com.github.imagineforgee.commands.CommandContext;
 import com.github.imagineforgee.commands.CommandManager;
+import com.github.imagineforgee.commands.CommandRouter;
 import com.github.imagineforgee.dispatch.EventDispatcher;
+import com.github.imagineforgee.dispatch.EventPipeline;
+import com.github.imagineforgee.dispatch.MessageFilter;
 import com.github.imagineforgee.dispatch.events.*;
 import com.github.imagineforgee.gateway.GatewayClient;
+import com.github.imagineforgee.gateway.GatewayPayload;
 import com.github.imagineforgee.dispatch.Event;
 import com.github.imagineforgee.http.DmAndChannelService;
 import com.github.imagineforgee.http.MessageSender;
+import com.github.imagineforgee.util.Snowflake;
 import com.github.imagineforgee.util.VoiceStateRegistry;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.ParallelFlux;
 
 import java.util.List;
 
@@ -20,48 +27,110 @@ public class UserBotClient {
 
     private final GatewayClient gatewayClient;
     private final EventDispatcher dispatcher;
+    private final EventPipeline eventPipeline;
     private final MessageSender messageSender;
     private final DmAndChannelService dmService;
     private final VoiceClient voiceClient;
     private final CommandManager commandManager = new CommandManager();
 
     private String selfId;
+    private volatile MessageFilter messageFilter;
 
     public UserBotClient(String token) {
+        this(token, 0);
+    }
+
+    /**
+     * @param eventLanes parallel, guild-ordered dispatch lanes; 0 for one per core
+     */
+    public UserBotClient(String token, int eventLanes) {
+        int lanes = EventPipeline.resolveLaneCount(eventLanes);
         this.gatewayClient = new GatewayClient(token);
-        this.dispatcher = new EventDispatcher();
+        this.dispatcher = new EventDispatcher(lanes);
+        this.eventPipeline = new EventPipeline(lanes, EventPipeline.DEFAULT_CAPACITY, dispatcher::dispatch);
+        dispatcher.setDroppable(type -> eventPipeline.getPolicy(type).isLossy());
         this.messageSender = new MessageSender(token);
         this.dmService = new DmAndChannelService(token);
         this.voiceClient = new VoiceClient(this);
 
-        dispatcher.registerParser("READY", ReadyEvent::new);
+        dispatcher.registerParser("READY", ReadyEvent.class, ReadyEvent::new);
         this.onEvent(ReadyEvent.class)
                 .subscribe(evt -> {
                     this.selfId = evt.getUserId();
+                    commandManager.getRouter().setSelfId(selfId);
+                    loadVoiceStates(evt);
                     System.out.println("[READY] Bot user ID set: " + selfId);
                 });
 
-        dispatcher.registerParser("MESSAGE_CREATE", MessageCreateEvent::new);
-        dispatcher.registerParser("VOICE_STATE_UPDATE", VoiceStateUpdateEvent::new);
+        dispatcher.registerParser("MESSAGE_CREATE", MessageCreateEvent.class, MessageCreateEvent::new);
+        dispatcher.registerParser("VOICE_STATE_UPDATE", VoiceStateUpdateEvent.class, VoiceStateUpdateEvent::new);
         this.onEvent(VoiceStateUpdateEvent.class)
                 .subscribe(evt -> {
                     String userId = evt.getUserId();
                     String channelId = evt.getChannelId();
                     System.out.printf("[VOICE_STATE_UPDATE] %s -> %s%n", userId, channelId);
-                    VoiceStateRegistry.update(userId, channelId);
+                    VoiceStateRegistry.update(evt.getGuildIdLong(), evt.getUserIdLong(), evt.getChannelIdLong());
                 });
 
-        dispatcher.registerParser("VOICE_SERVER_UPDATE", VoiceServerUpdateEvent::new);
+        dispatcher.registerParser("GUILD_CREATE", GuildCreateEvent.class, GuildCreateEvent::new);
+        this.onEvent(GuildCreateEvent.class)
+                .subscribe(evt -> VoiceStateRegistry.loadGuild(evt.getGuildIdLong(), evt.getVoiceStates()));
+
+        // also on outages: the voice states are stale until the guild's next GUILD_CREATE reloads them
+        dispatcher.registerParser("GUILD_DELETE", GuildDeleteEvent.class, GuildDeleteEvent::new);
+        this.onEvent(GuildDeleteEvent.class)
+                .subscribe(evt -> VoiceStateRegistry.removeGuild(evt.getGuildIdLong()));
 
+        dispatcher.registerParser("VOICE_SERVER_UPDATE", VoiceServerUpdateEvent.class, VoiceServerUpdateEvent::new);
+
+        gatewayClient.setDispatchFilter(dispatcher::wants);
         gatewayClient.getEventFlux()
-                .filter(json -> json.has("op") && json.get("op").getAsInt() == 0)
-                .subscribe(dispatcher::dispatch);
+                .filter(GatewayPayload::isDispatch)
+                .filter(this::acceptPayload)
+                .subscribe(eventPipeline::submit);
+    }
+
+    private void loadVoiceStates(ReadyEvent ready) {
+        for (JsonElement guild : ready.getGuilds()) {
+            JsonObject data = guild.getAsJsonObject();
+            if (data.has("voice_states")) {
+                VoiceStateRegistry.loadGuild(Snowflake.parse(data.get("id").getAsString()), data.getAsJsonArray("voice_states"));
+            }
+        }
+    }
+
+    private boolean acceptPayload(GatewayPayload payload) {
+        MessageFilter filter = messageFilter;
+        if (filter == null || !"MESSAGE_CREATE".equals(payload.getType())) return true;
+        JsonObject data = payload.getDataObject();
+        return data != null && filter.accept(data);
+    }
+
+    /**
+     * Drops {@code MESSAGE_CREATE} payloads on the gateway thread before they are queued or parsed; null accepts all.
+     * <p>
+     * This applies to every consumer, not just commands: rejected messages never reach
+     * {@link #onMessageCreate()}, {@link #getEvents()} or any other subscriber. Off by default.
+     */
+    public void setMessageFilter(MessageFilter messageFilter) {
+        this.messageFilter = messageFilter;
+    }
+
+    /**
+     * Accepts only messages that start with a command prefix.
+     */
+    public MessageFilter commandMessageFilter() {
+        return MessageFilter.content(commandManager.getRouter()::hasPrefix);
     }
 
     public GatewayClient getGatewayClient() {
         return gatewayClient;
     }
 
+    public EventPipeline getEventPipeline() {
+        return eventPipeline;
+    }
+
     public Mono<Void> connect() {
         return gatewayClient.connect();
     }
@@ -74,6 +143,16 @@ public class UserBotClient {
         return dispatcher.onEvent(clazz);
     }
 
+    /**
+     * One rail per dispatch lane; see {@link EventDispatcher#onEventParallel}.
+     */
+    public <T extends Event> ParallelFlux<T> onEventParallel(Class<T> clazz) {
+        return dispatcher.onEventParallel(clazz);
+    }
+
+    /**
+     * Every message accepted by the {@linkplain #setMessageFilter message filter}, if one is set.
+     */
     public Flux<MessageCreateEvent> onMessageCreate() {
         return onEvent(MessageCreateEvent.class);
     }
@@ -104,26 +183,14 @@ public class UserBotClient {
     }
 
     public void startCommandListener() {
-        this.onMessageCreate().subscribe(event -> {
+        // routing runs per lane, so a guild with a burst of messages doesn't delay the others
+        this.onEventParallel(MessageCreateEvent.class).subscribe(event -> {
             String content = event.getContent();
-
-            String mention = "<@1385453543707639838>";
-
-            String message = content.trim();
-            String cmdName = null;
-            String args = "";
-
-            if (message.startsWith(mention)) {
-                message = message.substring(mention.length()).trim();
-                String[] parts = message.split("\\s+", 2);
-                cmdName = parts[0];
-                if (parts.length > 1) args = parts[1];
-            } else {
-                return;
-            }
+            CommandRouter.Match match = commandManager.getRouter().route(content, event.getGuildId());
+            if (match == null) return;
 
             CommandContext ctx = new CommandContext(event, this);
-            commandManager.handleCommand(cmdName, args, ctx);
+            commandManager.handleCommand(match, content, ctx);
         });
     }
 
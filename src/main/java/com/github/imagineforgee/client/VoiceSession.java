@@ -0,0 +1,717 @@
+package com.github.imagineforgee.client;
+
+import com.github.imagineforgee.dispatch.events.VoiceServerUpdateEvent;
+import com.github.imagineforgee.dispatch.events.VoiceStateUpdateEvent;
+import com.github.imagineforgee.util.Snowflake;
+import com.github.imagineforgee.video.VideoMode;
+import com.github.imagineforgee.voice.OpusUdpStreamer;
+import com.github.imagineforgee.voice.SpeakingFlag;
+import com.github.imagineforgee.voice.VoiceConnectionState;
+import com.github.imagineforgee.voice.VoiceMode;
+import com.github.imagineforgee.voice.VoiceReceiver;
+import com.github.imagineforgee.voice.VoiceUdpConnection;
+import com.github.imagineforgee.voice.crypto.VoiceCipher;
+import com.github.imagineforgee.voice.crypto.VoiceCiphers;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One guild's voice connection: its state machine, voice WebSocket, UDP flow, streamer and active modes.
+ * <p>
+ * Sessions are created and routed to by {@link VoiceClient}; the UDP transport, sodium instance and
+ * schedulers they use are shared across all sessions.
+ */
+public class VoiceSession {
+    private static final Duration JOIN_TIMEOUT = Duration.ofSeconds(15);
+
+    private final VoiceClient client;
+    private final String guildId;
+
+    private final Sinks.Many<VoiceConnectionState> connectionStateSink = Sinks.many().replay().latest();
+    private final AtomicReference<VoiceConnectionState> currentState = new AtomicReference<>(new VoiceConnectionState());
+    private final AtomicBoolean isConnecting = new AtomicBoolean(false);
+    private final AtomicBoolean isConnected = new AtomicBoolean(false);
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private final AtomicInteger heartbeatSequence = new AtomicInteger(0);
+
+    private volatile String activeVoiceModeId;
+    private volatile VoiceMode activeVoiceMode;
+    private volatile String activeVideoModeId;
+    private volatile VideoMode activeVideoMode;
+
+    private volatile WebSocketClient voiceSocket;
+    private volatile Disposable heartbeat;
+    private volatile VoiceUdpConnection udp;
+    private volatile String encryptionMode = VoiceCiphers.XSALSA20_POLY1305;
+    private volatile OpusUdpStreamer udpStreamer;
+    private final VoiceReceiver receiver = new VoiceReceiver();
+
+    VoiceSession(VoiceClient client, String guildId) {
+        this.client = client;
+        this.guildId = guildId;
+    }
+
+    public String getGuildId() {
+        return guildId;
+    }
+
+    public VoiceConnectionState getState() {
+        return currentState.get();
+    }
+
+    public synchronized boolean switchToVoiceMode(String modeId) {
+        if (modeId.equals(activeVoiceModeId)) {
+            System.out.println("[Voice] Already using voice mode: " + modeId + " (guild " + guildId + ")");
+            return true;
+        }
+
+        VoiceMode newMode = client.createVoiceMode(modeId);
+        if (newMode == null) {
+            System.err.println("[Voice] Voice mode not found: " + modeId);
+            return false;
+        }
+
+        VoiceMode currentMode = activeVoiceMode;
+        if (currentMode != null) {
+            try {
+                currentMode.shutdown();
+                System.out.println("[Voice] Stopped voice mode: " + activeVoiceModeId + " (guild " + guildId + ")");
+            } catch (Exception e) {
+                System.err.println("[Voice] Error stopping voice mode " + activeVoiceModeId + ": " + e.getMessage());
+            }
+        }
+
+        try {
+            newMode.setVoiceSession(this);
+            activeVoiceMode = newMode;
+            activeVoiceModeId = modeId;
+
+            VoiceConnectionState state = currentState.get();
+            if (isConnected.get() && state.channelId != null) {
+                newMode.joinChannel(state.guildId, state.channelId);
+                if (udpStreamer != null) {
+                    newMode.setUdpStreamer(udpStreamer);
+                }
+            }
+
+            System.out.println("[Voice] Switched to voice mode: " + modeId + " (guild " + guildId + ")");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Voice] Error switching to voice mode " + modeId + ": " + e.getMessage());
+            activeVoiceMode = null;
+            activeVoiceModeId = null;
+            return false;
+        }
+    }
+
+    public synchronized boolean switchToVideoMode(String modeId) {
+        if (modeId.equals(activeVideoModeId)) {
+            System.out.println("[Voice] Already using video mode: " + modeId + " (guild " + guildId + ")");
+            return true;
+        }
+
+        VideoMode newMode = client.createVideoMode(modeId);
+        if (newMode == null) {
+            System.err.println("[Voice] Video mode not found: " + modeId);
+            return false;
+        }
+
+        VideoMode currentMode = activeVideoMode;
+        if (currentMode != null) {
+            try {
+                currentMode.shutdown();
+                System.out.println("[Voice] Stopped video mode: " + activeVideoModeId + " (guild " + guildId + ")");
+            } catch (Exception e) {
+                System.err.println("[Voice] Error stopping video mode " + activeVideoModeId + ": " + e.getMessage());
+            }
+        }
+
+        try {
+            newMode.setVoiceSession(this);
+            activeVideoMode = newMode;
+            activeVideoModeId = modeId;
+
+            VoiceConnectionState state = currentState.get();
+            if (isConnected.get() && state.channelId != null) {
+                newMode.joinChannel(state.guildId, state.channelId);
+            }
+
+            System.out.println("[Voice] Switched to video mode: " + modeId + " (guild " + guildId + ")");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Voice] Error switching to video mode " + modeId + ": " + e.getMessage());
+            activeVideoMode = null;
+            activeVideoModeId = null;
+            return false;
+        }
+    }
+
+    public String getActiveVoiceModeId() {
+        return activeVoiceModeId;
+    }
+
+    public String getActiveVideoModeId() {
+        return activeVideoModeId;
+    }
+
+    public VoiceMode getActiveVoiceMode() {
+        return activeVoiceMode;
+    }
+
+    public VideoMode getActiveVideoMode() {
+        return activeVideoMode;
+    }
+
+    void onServerUpdate(VoiceServerUpdateEvent event) {
+        VoiceConnectionState newState = currentState.updateAndGet(old -> old.withServerUpdate(
+                guildId,
+                event.getToken(),
+                event.getEndpoint() != null ? event.getEndpoint().split(":")[0] : null
+        ));
+        System.out.println("[Voice] Server update: " + newState);
+        onStateChanged(newState);
+    }
+
+    void onStateUpdate(VoiceStateUpdateEvent event) {
+        if (event.getChannelId() == null) {
+            System.out.println("[Voice] Bot left voice channel in guild " + guildId + ", disconnecting");
+            client.closeSession(this).subscribe();
+            return;
+        }
+
+        VoiceConnectionState newState = currentState.updateAndGet(old -> old.withStateUpdate(
+                guildId,
+                event.getChannelId(),
+                event.getSessionId()
+        ));
+        System.out.println("[Voice] State update: " + newState);
+        onStateChanged(newState);
+    }
+
+    private void onStateChanged(VoiceConnectionState state) {
+        connectionStateSink.tryEmitNext(state);
+        if (!state.isReadyToConnect()) return;
+
+        if (isConnecting.get() || isConnected.get()) {
+            System.out.println("[Voice] Already connecting/connected, ignoring state change");
+            return;
+        }
+
+        System.out.println("[Voice] Attempting connection with state: " + state);
+        connectToVoiceWebSocket(state)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        success -> System.out.println("[Voice] Connection established successfully"),
+                        error -> {
+                            System.err.println("[Voice] Connection failed: " + error.getMessage());
+                            isConnecting.set(false);
+                        }
+                );
+    }
+
+    /**
+     * Asks the gateway to move the bot into {@code channelId}; completes once both the state and
+     * server updates for it have arrived and the voice connection has been started.
+     */
+    Mono<Void> join(String channelId) {
+        System.out.println("[Voice] Joining voice channel: " + channelId + " (guild " + guildId + ")");
+
+        VoiceConnectionState previous = currentState.getAndSet(new VoiceConnectionState().withTargetChannel(guildId, channelId));
+        if (previous.channelId != null || isConnected.get() || isConnecting.get()) {
+            resetConnection();
+        }
+
+        Mono<VoiceConnectionState> ready = connectionStateSink.asFlux()
+                .filter(VoiceConnectionState::isReadyToConnect)
+                .filter(state -> channelId.equals(state.channelId))
+                .next()
+                .timeout(JOIN_TIMEOUT);
+
+        return client.sendVoiceState(guildId, channelId)
+                .then(ready)
+                .then();
+    }
+
+    Mono<Void> close() {
+        return Mono.fromRunnable(() -> {
+            resetConnection();
+            shutdownModes();
+            currentState.set(new VoiceConnectionState());
+        });
+    }
+
+    private void resetConnection() {
+        isConnected.set(false);
+        isConnecting.set(false);
+        cleanup();
+    }
+
+    private Mono<Void> connectToVoiceWebSocket(VoiceConnectionState state) {
+        return Mono.fromRunnable(() -> {
+            if (!isConnecting.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                cleanup();
+                URI uri = new URI("wss://" + state.endpoint + "/?v=4");
+                System.out.println("[Voice] Connecting to: " + uri);
+
+                WebSocketClient socket = new WebSocketClient(uri) {
+                    @Override
+                    public void onOpen(ServerHandshake handshake) {
+                        System.out.println("[Voice] WebSocket connected (guild " + guildId + ")");
+                        isConnecting.set(false);
+                        isConnected.set(true);
+                        sendVoiceIdentify(state);
+                    }
+
+                    @Override
+                    public void onMessage(String message) {
+                        try {
+                            processVoiceMessage(JsonParser.parseString(message).getAsJsonObject());
+                        } catch (Exception e) {
+                            System.err.println("[Voice] Error handling message: " + e.getMessage());
+                        }
+                    }
+
+                    @Override
+                    public void onClose(int code, String reason, boolean remote) {
+                        // a socket we already replaced or closed ourselves
+                        if (voiceSocket != this) return;
+
+                        System.out.println("[Voice] Disconnected (guild " + guildId + "): " + code + " - " + reason);
+                        isConnected.set(false);
+                        isConnecting.set(false);
+
+                        handleDisconnection(code, reason, state)
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .subscribe(null, error -> System.err.println("[Voice] Reconnect failed: " + error.getMessage()));
+                    }
+
+                    @Override
+                    public void onError(Exception ex) {
+                        System.err.println("[Voice] WebSocket error: " + ex.getMessage());
+                        isConnected.set(false);
+                        isConnecting.set(false);
+                    }
+                };
+
+                voiceSocket = socket;
+                socket.setConnectionLostTimeout(30);
+                socket.connect();
+
+            } catch (Exception e) {
+                isConnecting.set(false);
+                throw new RuntimeException("Failed to connect to voice WebSocket", e);
+            }
+        });
+    }
+
+    private Mono<Void> handleDisconnection(int code, String reason, VoiceConnectionState state) {
+        cleanup();
+        return switch (code) {
+            case 1006 -> {
+                System.out.println("[Voice] Abnormal closure (1006) — reconnecting...");
+                yield Mono.delay(Duration.ofSeconds(3))
+                        .then(join(state.channelId));
+            }
+            case 4015 -> {
+                System.out.println("[Voice] Voice server crashed, reconnecting...");
+                yield Mono.delay(Duration.ofSeconds(5))
+                        .then(connectToVoiceWebSocket(state));
+            }
+            case 4014 -> {
+                System.out.println("[Voice] Disconnected from voice channel");
+                yield client.closeSession(this);
+            }
+            default -> {
+                System.out.println("[Voice] Disconnected: code=" + code + ", reason=" + reason);
+                yield Mono.empty();
+            }
+        };
+    }
+
+    private void processVoiceMessage(JsonObject json) {
+        int op = json.get("op").getAsInt();
+        JsonObject d = json.has("d") && !json.get("d").isJsonNull() && json.get("d").isJsonObject()
+                ? json.getAsJsonObject("d") : null;
+
+        switch (op) {
+            case 8: // HELLO
+                if (d != null && d.has("heartbeat_interval")) {
+                    int interval = d.get("heartbeat_interval").getAsInt();
+                    System.out.println("[Voice] Starting heartbeat: " + interval + "ms");
+                    startHeartbeat(interval);
+                }
+                break;
+
+            case 2: // READY
+                if (d != null) {
+                    handleVoiceReady(d);
+                }
+                break;
+
+            case 4: // SESSION_DESCRIPTION
+                if (d != null && d.has("secret_key")) {
+                    handleSessionDescription(d);
+                }
+                break;
+
+            case 6: // HEARTBEAT_ACK
+                break;
+
+            case 5: // SPEAKING, maps another user's SSRC
+                if (d != null && d.has("ssrc") && d.has("user_id")) {
+                    receiver.mapSsrc(d.get("ssrc").getAsInt(), Snowflake.parse(d.get("user_id").getAsString()));
+                }
+                break;
+
+            case 13: // CLIENT_DISCONNECT
+                if (d != null && d.has("user_id")) {
+                    receiver.removeUser(Snowflake.parse(d.get("user_id").getAsString()));
+                }
+                break;
+
+            default:
+                System.out.println("[Voice] Unknown opcode: " + op);
+        }
+    }
+
+    private void startHeartbeat(int interval) {
+        stopHeartbeat();
+        // ticks run on the shared parallel scheduler, so idle sessions cost no thread
+        heartbeat = Flux.interval(Duration.ofMillis(interval))
+                .subscribe(tick -> sendHeartbeat(),
+                        error -> System.err.println("[Voice] Heartbeat error: " + error.getMessage()));
+    }
+
+    private void stopHeartbeat() {
+        Disposable current = heartbeat;
+        if (current != null) {
+            current.dispose();
+            heartbeat = null;
+        }
+    }
+
+    private void handleVoiceReady(JsonObject d) {
+        int ssrc = d.get("ssrc").getAsInt();
+        String ip = d.get("ip").getAsString();
+        int port = d.get("port").getAsInt();
+
+        currentState.updateAndGet(state -> state.withVoiceReady(ssrc, ip, port));
+
+        System.out.println("[Voice] Voice READY - SSRC: " + ssrc + ", IP: " + ip + ", Port: " + port);
+
+        if (d.has("modes")) {
+            List<String> offered = new ArrayList<>();
+            for (JsonElement mode : d.getAsJsonArray("modes")) {
+                offered.add(mode.getAsString());
+            }
+            String selected = VoiceCiphers.selectMode(offered, client.getSodium());
+            if (selected != null) {
+                encryptionMode = selected;
+            } else {
+                System.err.println("[Voice] No supported encryption mode offered: " + offered);
+            }
+        }
+        System.out.println("[Voice] Encryption mode: " + encryptionMode);
+
+        performUdpDiscovery(ip, port, ssrc)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        success -> System.out.println("[Voice] UDP discovery completed"),
+                        error -> System.err.println("[Voice] UDP discovery failed: " + error.getMessage())
+                );
+    }
+
+    private Mono<Void> performUdpDiscovery(String ip, int port, int ssrc) {
+        return Mono.fromCallable(() -> {
+                    System.out.println("[Voice] Starting UDP discovery");
+
+                    if (udp != null) {
+                        udp.close();
+                    }
+
+                    udp = client.getUdpTransport().open(new InetSocketAddress(ip, port));
+                    return udp;
+                })
+                .flatMap(connection -> connection.discover(ssrc))
+                .timeout(Duration.ofSeconds(10))
+                .doOnNext(discovered -> {
+                    System.out.println("[Voice] Discovered IP: " + discovered.getHostString() + ", Port: " + discovered.getPort());
+                    sendSelectProtocol(discovered.getHostString(), discovered.getPort());
+                })
+                .onErrorResume(error -> {
+                    System.err.println("[Voice] UDP discovery failed: " + error.getMessage());
+                    System.out.println("[Voice] Using fallback IP/port");
+                    sendSelectProtocol(ip, port);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void notifyModesOfChannelJoin(String channelId) {
+        VoiceMode activeVoice = activeVoiceMode;
+        if (activeVoice != null) {
+            try {
+                activeVoice.joinChannel(guildId, channelId);
+                if (udpStreamer != null) {
+                    activeVoice.setUdpStreamer(udpStreamer);
+                }
+            } catch (Exception e) {
+                System.err.println("[Voice] Error notifying voice mode of channel join: " + e.getMessage());
+            }
+        }
+
+        VideoMode activeVideo = activeVideoMode;
+        if (activeVideo != null) {
+            try {
+                activeVideo.joinChannel(guildId, channelId);
+            } catch (Exception e) {
+                System.err.println("[Voice] Error notifying video mode of channel join: " + e.getMessage());
+            }
+        }
+    }
+
+    public void playTrack(String url) {
+        VoiceMode activeMode = activeVoiceMode;
+        if (activeMode != null && isConnected.get()) {
+            System.out.println("[Voice] Delegating play to active VoiceMode: " + activeVoiceModeId + " (guild " + guildId + ")");
+            activeMode.start(url);
+        } else {
+            System.err.println("[Voice] Cannot play - not connected or no active VoiceMode (guild " + guildId + ")");
+        }
+    }
+
+    public void stop() {
+        VoiceMode activeVoice = activeVoiceMode;
+        if (activeVoice != null) {
+            System.out.println("[Voice] Stopping active VoiceMode: " + activeVoiceModeId + " (guild " + guildId + ")");
+            activeVoice.stop();
+        }
+
+        VideoMode activeVideo = activeVideoMode;
+        if (activeVideo != null) {
+            System.out.println("[Voice] Stopping active VideoMode: " + activeVideoModeId + " (guild " + guildId + ")");
+            activeVideo.stop();
+        }
+    }
+
+    public Mono<Void> debugStatus() {
+        return Mono.fromRunnable(() -> {
+            VoiceConnectionState state = currentState.get();
+            System.out.println("[Voice] === DEBUG STATUS (guild " + guildId + ") ===");
+            System.out.println("[Voice] Connected: " + isConnected.get());
+            System.out.println("[Voice] Connecting: " + isConnecting.get());
+            System.out.println("[Voice] State: " + state);
+            System.out.println("[Voice] WebSocket open: " + (voiceSocket != null && voiceSocket.isOpen()));
+            System.out.println("[Voice] UDP closed: " + (udp == null || udp.isClosed()));
+            System.out.println("[Voice] Active VoiceMode: " + activeVoiceModeId);
+            System.out.println("[Voice] Active VideoMode: " + activeVideoModeId);
+            System.out.println("[Voice] UDP Streamer ready: " + (udpStreamer != null));
+            System.out.println("[Voice] ========================");
+        });
+    }
+
+    private void sendVoiceIdentify(VoiceConnectionState state) {
+        JsonObject identify = new JsonObject();
+        identify.addProperty("op", 0);
+        JsonObject data = new JsonObject();
+        data.addProperty("server_id", state.guildId);
+        data.addProperty("user_id", client.getSelfId());
+        data.addProperty("session_id", state.sessionId);
+        data.addProperty("token", state.token);
+        identify.add("d", data);
+
+        voiceSocket.send(identify.toString());
+        System.out.println("[Voice] Sent IDENTIFY");
+    }
+
+    private void sendHeartbeat() {
+        WebSocketClient socket = voiceSocket;
+        if (isConnected.get() && socket != null && socket.isOpen()) {
+            JsonObject heartbeat = new JsonObject();
+            heartbeat.addProperty("op", 3);
+            heartbeat.add("d", new JsonPrimitive(System.currentTimeMillis()));
+            socket.send(heartbeat.toString());
+            heartbeatSequence.incrementAndGet();
+        }
+    }
+
+    private void sendSelectProtocol(String ip, int port) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("op", 1);
+        JsonObject data = new JsonObject();
+        data.addProperty("protocol", "udp");
+        JsonObject address = new JsonObject();
+        address.addProperty("address", ip);
+        address.addProperty("port", port);
+        address.addProperty("mode", encryptionMode);
+        data.add("data", address);
+        payload.add("d", data);
+
+        voiceSocket.send(payload.toString());
+        System.out.println("[Voice] Sent SELECT_PROTOCOL");
+    }
+
+    private void handleSessionDescription(JsonObject d) {
+        JsonArray keyArray = d.getAsJsonArray("secret_key");
+        byte[] secretKey = new byte[keyArray.size()];
+        for (int i = 0; i < keyArray.size(); i++) {
+            secretKey[i] = keyArray.get(i).getAsByte();
+        }
+        String mode = d.has("mode") ? d.get("mode").getAsString() : encryptionMode;
+
+        VoiceConnectionState state = currentState.get();
+        System.out.println("[Voice] Received encryption key (" + mode + "), initializing voice");
+
+        try {
+            VoiceCipher cipher = VoiceCiphers.create(mode, secretKey, client.getSodium());
+            udpStreamer = new OpusUdpStreamer(udp, state.ssrc, cipher, isConnected);
+            // Java-WebSocket only queues the frame, so this is safe on the clock thread
+            udpStreamer.setSpeakingListener(speaking -> {
+                if (speaking) setSpeaking(SpeakingFlag.MICROPHONE);
+                else setSpeaking();
+            });
+            System.out.println("[Voice] UDP Streamer initialized");
+
+            // the receive side gets its own cipher; cipher instances are single-threaded
+            receiver.start(VoiceCiphers.create(mode, secretKey, client.getSodium()), state.ssrc);
+            udp.setReceiveHandler(receiver::onPacket);
+
+            initialized.set(true);
+            notifyModesOfChannelJoin(state.channelId);
+            System.out.println("[Voice] Voice connection fully established (guild " + guildId + ")");
+        } catch (Exception e) {
+            System.err.println("[Voice] Failed to initialize voice streamer: " + e.getMessage());
+        }
+    }
+
+    public void setSpeaking(SpeakingFlag... flags) {
+        WebSocketClient socket = voiceSocket;
+        if (!isConnected.get() || socket == null || !socket.isOpen()) {
+            System.err.println("[Voice] Cannot set speaking - not connected");
+            return;
+        }
+
+        VoiceConnectionState state = currentState.get();
+        if (state.ssrc == 0) {
+            System.err.println("[Voice] Cannot set speaking - SSRC not set");
+            return;
+        }
+
+        int bitmask = 0;
+        for (SpeakingFlag flag : flags) {
+            bitmask |= flag.getBit();
+        }
+
+        JsonObject payload = new JsonObject();
+        payload.addProperty("op", 5);
+
+        JsonObject data = new JsonObject();
+        data.addProperty("speaking", bitmask);
+        data.addProperty("delay", 0);
+        data.addProperty("ssrc", state.ssrc);
+
+        payload.add("d", data);
+        socket.send(payload.toString());
+
+        System.out.println("[Voice] Set speaking: " + (bitmask != 0 ? bitmask : "off") + " (" + Arrays.toString(flags) + ")");
+    }
+
+    private void cleanup() {
+        stopHeartbeat();
+
+        WebSocketClient socket = voiceSocket;
+        voiceSocket = null;
+        if (socket != null && socket.isOpen()) {
+            socket.close();
+        }
+        if (udp != null) {
+            udp.close();
+            udp = null;
+        }
+        receiver.stop();
+
+        if (udpStreamer != null) {
+            udpStreamer.cancel();
+            udpStreamer = null;
+        }
+
+        if (initialized.getAndSet(false)) {
+            VoiceMode activeVoice = activeVoiceMode;
+            if (activeVoice != null) {
+                activeVoice.stop();
+            }
+
+            VideoMode activeVideo = activeVideoMode;
+            if (activeVideo != null) {
+                activeVideo.stop();
+            }
+        }
+    }
+
+    private synchronized void shutdownModes() {
+        VoiceMode voice = activeVoiceMode;
+        activeVoiceMode = null;
+        activeVoiceModeId = null;
+        if (voice != null) {
+            try {
+                voice.shutdown();
+            } catch (Exception e) {
+                System.err.println("[Voice] Error shutting down voice mode: " + e.getMessage());
+            }
+        }
+
+        VideoMode video = activeVideoMode;
+        activeVideoMode = null;
+        activeVideoModeId = null;
+        if (video != null) {
+            try {
+                video.shutdown();
+            } catch (Exception e) {
+                System.err.println("[Voice] Error shutting down video mode: " + e.getMessage());
+            }
+        }
+    }
+
+    public boolean isConnected() {
+        return isConnected.get();
+    }
+
+    public boolean isInitialized() {
+        return initialized.get();
+    }
+
+    public OpusUdpStreamer getUdpStreamer() {
+        return udpStreamer;
+    }
+
+    /**
+     * Audio received from other users in this guild's channel; subscriptions survive reconnects.
+     */
+    public VoiceReceiver getReceiver() {
+        return receiver;
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.imagineforgee.commands;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Alternative names a command class can be invoked by, alongside its {@code @Command} name.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Aliases {
+    String[] value();
+}
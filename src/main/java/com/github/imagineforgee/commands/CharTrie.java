@@ -0,0 +1,98 @@
+package com.github.imagineforgee.commands;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable character trie; rebuilt from scratch whenever its key set changes.
+ * <p>
+ * Children are kept as parallel sorted arrays, so a lookup step is a short binary search with
+ * no boxing or hashing.
+ */
+final class CharTrie<V> {
+
+    static final class Node<V> {
+        private char[] keys = new char[0];
+        @SuppressWarnings("unchecked")
+        private Node<V>[] children = new Node[0];
+        private V value;
+
+        Node<V> child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        V value() {
+            return value;
+        }
+
+        private Node<V> getOrAdd(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+
+            int at = -i - 1;
+            Node<V> node = new Node<>();
+            keys = insert(keys, at, c);
+            children = insert(children, at, node);
+            return node;
+        }
+
+        private static char[] insert(char[] array, int at, char c) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, at);
+            grown[at] = c;
+            System.arraycopy(array, at, grown, at + 1, array.length - at);
+            return grown;
+        }
+
+        private static <T> T[] insert(T[] array, int at, T item) {
+            T[] grown = Arrays.copyOf(array, array.length + 1);
+            System.arraycopy(array, at, grown, at + 1, array.length - at);
+            grown[at] = item;
+            return grown;
+        }
+    }
+
+    private static final CharTrie<?> EMPTY = new CharTrie<>(new Node<>());
+
+    private final Node<V> root;
+
+    private CharTrie(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> CharTrie<V> empty() {
+        return (CharTrie<V>) EMPTY;
+    }
+
+    static <V> CharTrie<V> of(Map<String, V> entries) {
+        Node<V> root = new Node<>();
+        entries.forEach((key, value) -> {
+            Node<V> node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.getOrAdd(key.charAt(i));
+            }
+            node.value = value;
+        });
+        return new CharTrie<>(root);
+    }
+
+    Node<V> root() {
+        return root;
+    }
+
+    /**
+     * End index of the longest key that {@code text} contains starting at {@code from}, or -1.
+     */
+    int longestPrefix(String text, int from) {
+        Node<V> node = root;
+        int end = node.value != null ? from : -1;
+        for (int i = from; i < text.length(); i++) {
+            node = node.child(text.charAt(i));
+            if (node == null) break;
+            if (node.value != null) end = i + 1;
+        }
+        return end;
+    }
+}
@@ -1,80 +1,192 @@
 package com.github.imagineforgee.commands;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Arguments of a command invocation: positional tokens, {@code key=value} pairs and {@code --flags}.
+ * <p>
+ * The input is tokenized in one pass into offsets into the original string; a token's text is
+ * only copied out when a getter asks for it. Tokens are separated by whitespace, and a token
+ * starting with a single or double quote runs to the matching closing quote. Keys and flags are
+ * case-insensitive, and a repeated key resolves to its last value.
+ */
 public class CommandArgs {
 
-    private final List<String> positional = new ArrayList<>();
-    private final Map<String, String> keyValueArgs = new HashMap<>();
-    private final Set<String> flags = new HashSet<>();
+    private static final int POSITIONAL = -1;
+    private static final int FLAG = -2;
 
-    private static final Pattern ARG_PATTERN = Pattern.compile("\"([^\"]*)\"|'([^']*)'|(\\S+)");
+    private final String source;
+    // per token: start, end (exclusive), and the '=' index, POSITIONAL or FLAG
+    private int[] tokens = new int[12];
+    private int tokenCount;
 
     public CommandArgs(String input) {
-        Matcher matcher = ARG_PATTERN.matcher(input);
-        while (matcher.find()) {
-            String token = matcher.group(1);
-            if (token == null) token = matcher.group(2);
-            if (token == null) token = matcher.group(3);
-
-            if (token == null) continue;
-            parseToken(token);
+        this(input, 0);
+    }
+
+    /**
+     * Parses the arguments in {@code source} starting at {@code offset}.
+     */
+    public CommandArgs(String source, int offset) {
+        this.source = source;
+        tokenize(offset);
+    }
+
+    private void tokenize(int offset) {
+        int length = source.length();
+        int i = offset;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '"' || c == '\'') {
+                int close = source.indexOf(c, i + 1);
+                if (close >= 0) {
+                    addToken(i + 1, close);
+                    i = close + 1;
+                    continue;
+                }
+            }
+
+            int start = i;
+            while (i < length && !Character.isWhitespace(source.charAt(i))) i++;
+            addToken(start, i);
         }
     }
 
-    private void parseToken(String token) {
-        if (token.startsWith("--")) {
-            flags.add(token.substring(2).toLowerCase());
-        } else if (token.contains("=")) {
-            String[] parts = token.split("=", 2);
-            keyValueArgs.put(parts[0].toLowerCase(), parts[1]);
+    private void addToken(int start, int end) {
+        int kind = POSITIONAL;
+        if (end - start >= 2 && source.charAt(start) == '-' && source.charAt(start + 1) == '-') {
+            kind = FLAG;
         } else {
-            positional.add(token);
+            for (int i = start; i < end; i++) {
+                if (source.charAt(i) == '=') {
+                    kind = i;
+                    break;
+                }
+            }
         }
+
+        int at = tokenCount * 3;
+        if (at + 3 > tokens.length) tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        tokens[at] = start;
+        tokens[at + 1] = end;
+        tokens[at + 2] = kind;
+        tokenCount++;
+    }
+
+    private String text(int start, int end) {
+        return source.substring(start, end);
     }
 
     public String get(int index) {
-        return index < positional.size() ? positional.get(index) : null;
+        for (int t = 0; t < tokenCount; t++) {
+            if (tokens[t * 3 + 2] == POSITIONAL && index-- == 0) {
+                return text(tokens[t * 3], tokens[t * 3 + 1]);
+            }
+        }
+        return null;
     }
 
     public String getAllJoinedFrom(int index) {
-        if (index >= positional.size()) return "";
-        return String.join(" ", positional.subList(index, positional.size()));
+        StringBuilder joined = new StringBuilder();
+        int seen = 0;
+        for (int t = 0; t < tokenCount; t++) {
+            if (tokens[t * 3 + 2] != POSITIONAL || seen++ < index) continue;
+            if (seen > index + 1) joined.append(' ');
+            joined.append(source, tokens[t * 3], tokens[t * 3 + 1]);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Token index of the last {@code key=value} pair with the given key, or -1.
+     */
+    private int findKey(String key) {
+        for (int t = tokenCount - 1; t >= 0; t--) {
+            int start = tokens[t * 3];
+            int eq = tokens[t * 3 + 2];
+            if (eq >= 0 && eq - start == key.length() && source.regionMatches(true, start, key, 0, key.length())) {
+                return t;
+            }
+        }
+        return -1;
     }
 
     public String getKey(String key) {
-        return keyValueArgs.getOrDefault(key.toLowerCase(), null);
+        int t = findKey(key);
+        return t < 0 ? null : text(tokens[t * 3 + 2] + 1, tokens[t * 3 + 1]);
     }
 
     public boolean getFlag(String flagName) {
-        return flags.contains(flagName.toLowerCase());
+        for (int t = 0; t < tokenCount; t++) {
+            int start = tokens[t * 3] + 2;
+            if (tokens[t * 3 + 2] == FLAG && tokens[t * 3 + 1] - start == flagName.length()
+                    && source.regionMatches(true, start, flagName, 0, flagName.length())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public boolean getBool(String key, boolean defaultVal) {
-        String val = getKey(key);
-        return val == null ? defaultVal : val.equalsIgnoreCase("true");
+        int t = findKey(key);
+        if (t < 0) return defaultVal;
+        int start = tokens[t * 3 + 2] + 1;
+        return tokens[t * 3 + 1] - start == 4 && source.regionMatches(true, start, "true", 0, 4);
     }
 
     public int getInt(String key, int defaultVal) {
-        try {
-            return Integer.parseInt(getKey(key));
-        } catch (Exception e) {
-            return defaultVal;
+        int t = findKey(key);
+        if (t < 0) return defaultVal;
+
+        int i = tokens[t * 3 + 2] + 1;
+        int end = tokens[t * 3 + 1];
+        if (i == end) return defaultVal;
+
+        boolean negative = source.charAt(i) == '-';
+        if (negative || source.charAt(i) == '+') i++;
+        if (i == end) return defaultVal;
+
+        // accumulate negatively so Integer.MIN_VALUE fits
+        long limit = negative ? Integer.MIN_VALUE : -(long) Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(source.charAt(i), 10);
+            if (digit < 0) return defaultVal;
+            value = value * 10 - digit;
+            if (value < limit) return defaultVal;
         }
+        return (int) (negative ? value : -value);
     }
 
     public List<String> getPositional() {
+        List<String> positional = new ArrayList<>();
+        for (int t = 0; t < tokenCount; t++) {
+            if (tokens[t * 3 + 2] == POSITIONAL) positional.add(text(tokens[t * 3], tokens[t * 3 + 1]));
+        }
         return Collections.unmodifiableList(positional);
     }
 
     public Map<String, String> getKeyValueMap() {
+        Map<String, String> keyValueArgs = new HashMap<>();
+        for (int t = 0; t < tokenCount; t++) {
+            int eq = tokens[t * 3 + 2];
+            if (eq >= 0) {
+                keyValueArgs.put(text(tokens[t * 3], eq).toLowerCase(), text(eq + 1, tokens[t * 3 + 1]));
+            }
+        }
         return Collections.unmodifiableMap(keyValueArgs);
     }
 
     public Set<String> getFlags() {
+        Set<String> flags = new HashSet<>();
+        for (int t = 0; t < tokenCount; t++) {
+            if (tokens[t * 3 + 2] == FLAG) flags.add(text(tokens[t * 3] + 2, tokens[t * 3 + 1]).toLowerCase());
+        }
         return Collections.unmodifiableSet(flags);
     }
 }
-
@@ -0,0 +1,165 @@
+package com.github.imagineforgee.commands;
+
+import com.github.imagineforgee.util.LatencyHistogram;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs command invocations off the event thread, one virtual thread per invocation.
+ * <p>
+ * Each user and each guild may only have a limited number of commands in flight; further
+ * invocations are rejected rather than queued. In-flight counts are only kept while non-zero, so
+ * idle users and guilds cost nothing. A command that outlives its timeout is interrupted, or
+ * skipped if it hadn't started yet. Queue time (submit to start) and run time per command are
+ * recorded.
+ */
+public class CommandExecutor {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_USER_LIMIT = 2;
+    public static final int DEFAULT_GUILD_LIMIT = 8;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("command-", 0).factory());
+
+    private final Map<String, Integer> userInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Integer> guildInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Duration> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> runTimes = new ConcurrentHashMap<>();
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile Duration defaultTimeout = DEFAULT_TIMEOUT;
+    private volatile int userLimit = DEFAULT_USER_LIMIT;
+    private volatile int guildLimit = DEFAULT_GUILD_LIMIT;
+
+    /**
+     * Schedules a command invocation. Returns false without running it if the author or guild
+     * is already at its concurrency limit.
+     */
+    public boolean submit(String commandName, CommandContext context, Runnable command) {
+        String user = context.getAuthorId() == null ? "" : context.getAuthorId();
+        if (!tryAcquire(userInFlight, user, userLimit)) {
+            rejected.increment();
+            return false;
+        }
+
+        String guild = context.getGuildId();
+        if (guild != null && !tryAcquire(guildInFlight, guild, guildLimit)) {
+            release(userInFlight, user);
+            rejected.increment();
+            return false;
+        }
+
+        Invocation invocation = new Invocation(commandName, System.nanoTime());
+        Duration timeout = timeouts.getOrDefault(commandName, defaultTimeout);
+        invocation.timer = Schedulers.parallel().schedule(invocation::timeout, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        executor.execute(() -> {
+            long started = System.nanoTime();
+            queueTime.record(started - invocation.submittedAt);
+            invocation.runner = Thread.currentThread();
+            try {
+                // the timeout may have fired while this was still waiting for a thread
+                if (!invocation.expired) command.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.err.println("[Commands] '" + commandName + "' failed: " + e);
+            } finally {
+                invocation.timer.dispose();
+                runTime(commandName).record(System.nanoTime() - started);
+                release(userInFlight, user);
+                if (guild != null) release(guildInFlight, guild);
+            }
+        });
+        return true;
+    }
+
+    // an attempt over the limit backs its increment out again
+    private static boolean tryAcquire(Map<String, Integer> inFlight, String key, int limit) {
+        if (inFlight.merge(key, 1, Integer::sum) <= limit) return true;
+        release(inFlight, key);
+        return false;
+    }
+
+    // the entry goes away with its last in-flight command, so the map never outgrows the load
+    private static void release(Map<String, Integer> inFlight, String key) {
+        inFlight.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private LatencyHistogram runTime(String commandName) {
+        return runTimes.computeIfAbsent(commandName, c -> new LatencyHistogram());
+    }
+
+    public void setTimeout(String commandName, Duration timeout) {
+        timeouts.put(commandName, timeout);
+    }
+
+    public void setDefaultTimeout(Duration timeout) {
+        this.defaultTimeout = timeout;
+    }
+
+    /**
+     * Applies to invocations submitted after the change.
+     */
+    public void setConcurrencyLimits(int perUser, int perGuild) {
+        this.userLimit = perUser;
+        this.guildLimit = perGuild;
+    }
+
+    public LatencyHistogram getQueueTime() {
+        return queueTime;
+    }
+
+    public LatencyHistogram getRunTime(String commandName) {
+        return runTime(commandName);
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private final class Invocation {
+        final String commandName;
+        final long submittedAt;
+        volatile Thread runner;
+        volatile boolean expired;
+        volatile Disposable timer;
+
+        Invocation(String commandName, long submittedAt) {
+            this.commandName = commandName;
+            this.submittedAt = submittedAt;
+        }
+
+        // expired is written before runner is read, and the runner does the reverse, so a
+        // command is either skipped or interrupted
+        void timeout() {
+            expired = true;
+            timedOut.increment();
+            Thread thread = runner;
+            if (thread == null) {
+                System.err.println("[Commands] '" + commandName + "' timed out before it started, skipping.");
+                return;
+            }
+            System.err.println("[Commands] '" + commandName + "' timed out, interrupting.");
+            thread.interrupt();
+        }
+    }
+}
@@ -3,50 +3,78 @@ package com.github.imagineforgee.commands;
 import com.clawsoftstudios.purrfectlib.scanner.CommandInfo;
 import com.github.imagineforgee.bot.util.Blacklist;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class CommandManager {
 
-    private final Map<String, CommandInfo> commands = new HashMap<>();
+    private final Map<String, CompiledCommand> commands = new HashMap<>();
+    private final CommandExecutor executor = new CommandExecutor();
+    private final CommandRouter router = new CommandRouter();
 
+    /**
+     * Binds each command's execute method up front.
+     *
+     * @throws IllegalStateException if a command class has an unusable constructor or execute signature
+     */
     public void registerCommands(List<CommandInfo> commandList) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
         for (CommandInfo cmd : commandList) {
-            commands.put(cmd.getName(), cmd);
+            commands.put(cmd.getName(), CompiledCommand.compile(cmd, lookup));
+
+            Aliases aliases = cmd.getCommandClass().getAnnotation(Aliases.class);
+            router.addCommand(cmd.getName(), aliases != null ? aliases.value() : new String[0]);
         }
     }
 
-    public void handleCommand(String commandName, String args, CommandContext context) {
-        String userId  = context.getAuthorId();
-        String guildId = context.getGuildId();
+    /**
+     * Runs the command matched by {@link #getRouter()} in {@code content}.
+     */
+    public void handleCommand(CommandRouter.Match match, String content, CommandContext context) {
+        long userId = context.getMsgEvent().getAuthorIdLong();
+        long guildId = context.getMsgEvent().getGuildIdLong();
 
         if (Blacklist.isUserBlacklisted(userId)) {
             context.reply("⛔ You are blacklisted from using this bot.");
             return;
         }
-        if (guildId != null && Blacklist.isGuildBlacklisted(guildId)) {
+        if (Blacklist.isGuildBlacklisted(guildId)) {
             context.reply("⛔ Commands are disabled in this server.");
             return;
         }
 
-        CommandInfo cmd = commands.get(commandName);
+        CompiledCommand cmd = match.getCommand() != null ? commands.get(match.getCommand()) : null;
         if (cmd == null) {
-            context.reply("Unknown command: " + commandName);
+            context.reply("Unknown command: " + content.substring(match.getNameStart(), match.getNameEnd()));
             return;
         }
 
-        try {
-            Object cmdInstance = cmd.getCommandClass().getDeclaredConstructor().newInstance();
-            CommandArgs parsedArgs = new CommandArgs(args);
-            cmd.getCommandClass()
-                    .getMethod("execute", CommandArgs.class, CommandContext.class)
-                    .invoke(cmdInstance, parsedArgs, context);
+        String commandName = cmd.getInfo().getName();
+        int argsStart = match.getArgsStart();
+        boolean accepted = executor.submit(commandName, context, () -> invoke(cmd, content, argsStart, context));
+        if (!accepted) {
+            context.reply("⏳ Too many commands running, try again in a moment.");
+        }
+    }
 
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
+    // rethrows so the executor counts the invocation as failed
+    private void invoke(CompiledCommand cmd, String content, int argsStart, CommandContext context) {
+        try {
+            cmd.execute(new CommandArgs(content, argsStart), context);
+        } catch (RuntimeException e) {
             e.printStackTrace();
-            context.reply("Failed to execute command: " + commandName);
+            context.reply("Failed to execute command: " + cmd.getInfo().getName());
+            throw e;
         }
     }
+
+    public CommandRouter getRouter() {
+        return router;
+    }
+
+    public CommandExecutor getExecutor() {
+        return executor;
+    }
 }
@@ -0,0 +1,145 @@
+package com.github.imagineforgee.commands;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recognises command invocations in message content.
+ * <p>
+ * Global prefixes (the bot's own mention), per-guild prefixes and command names with their
+ * aliases are each kept in a {@link CharTrie}. {@link #route} walks the content once, left to
+ * right, and only allocates when a command prefix actually matched. Tries are rebuilt on the
+ * rare configuration change, so routing itself takes no locks.
+ */
+public class CommandRouter {
+
+    public static final class Match {
+        private final String command;
+        private final int nameStart;
+        private final int nameEnd;
+        private final int argsStart;
+
+        private Match(String command, int nameStart, int nameEnd, int argsStart) {
+            this.command = command;
+            this.nameStart = nameStart;
+            this.nameEnd = nameEnd;
+            this.argsStart = argsStart;
+        }
+
+        /**
+         * Canonical command name, or null if a prefix matched but the name is unknown.
+         */
+        public String getCommand() {
+            return command;
+        }
+
+        public int getNameStart() {
+            return nameStart;
+        }
+
+        public int getNameEnd() {
+            return nameEnd;
+        }
+
+        /**
+         * Index of the first argument character, or the content length if there are none.
+         */
+        public int getArgsStart() {
+            return argsStart;
+        }
+    }
+
+    private final Map<String, String> prefixSource = new HashMap<>();
+    private final Map<String, String> commandSource = new HashMap<>();
+    private final Map<String, CharTrie<String>> guildPrefixes = new ConcurrentHashMap<>();
+
+    private volatile CharTrie<String> prefixes = CharTrie.empty();
+    private volatile CharTrie<String> commands = CharTrie.empty();
+    private String selfId;
+
+    /**
+     * Accepts {@code <@id>} and {@code <@!id>} mentions of the given user as a prefix.
+     */
+    public synchronized void setSelfId(String selfId) {
+        if (this.selfId != null) {
+            prefixSource.remove("<@" + this.selfId + ">");
+            prefixSource.remove("<@!" + this.selfId + ">");
+        }
+        this.selfId = selfId;
+        prefixSource.put("<@" + selfId + ">", "<@" + selfId + ">");
+        prefixSource.put("<@!" + selfId + ">", "<@!" + selfId + ">");
+        prefixes = CharTrie.of(prefixSource);
+    }
+
+    public synchronized void addPrefix(String prefix) {
+        prefixSource.put(prefix, prefix);
+        prefixes = CharTrie.of(prefixSource);
+    }
+
+    public synchronized void removePrefix(String prefix) {
+        prefixSource.remove(prefix);
+        prefixes = CharTrie.of(prefixSource);
+    }
+
+    /**
+     * Adds a prefix that only applies in the given guild, on top of the global ones. Null clears it.
+     */
+    public void setGuildPrefix(String guildId, String prefix) {
+        if (prefix == null || prefix.isEmpty()) guildPrefixes.remove(guildId);
+        else guildPrefixes.put(guildId, CharTrie.of(Map.of(prefix, prefix)));
+    }
+
+    public synchronized void addCommand(String name, String... aliases) {
+        commandSource.put(name, name);
+        for (String alias : aliases) {
+            commandSource.putIfAbsent(alias, name);
+        }
+        commands = CharTrie.of(commandSource);
+    }
+
+    /**
+     * Whether {@code content} starts with a global or guild prefix; allocation-free pre-check for {@link #route}.
+     */
+    public boolean hasPrefix(String content, String guildId) {
+        return prefixEnd(content, guildId) >= 0;
+    }
+
+    /**
+     * Matches a prefix followed by a command name at the start of {@code content}.
+     *
+     * @return the match, or null if the content does not start with a known prefix
+     */
+    public Match route(String content, String guildId) {
+        int length = content.length();
+        int end = prefixEnd(content, guildId);
+        if (end < 0) return null;
+
+        int nameStart = skipWhitespace(content, end);
+        CharTrie.Node<String> node = commands.root();
+        int nameEnd = nameStart;
+        while (nameEnd < length && !Character.isWhitespace(content.charAt(nameEnd))) {
+            if (node != null) node = node.child(content.charAt(nameEnd));
+            nameEnd++;
+        }
+        if (nameEnd == nameStart) return null;
+
+        String command = node != null ? node.value() : null;
+        return new Match(command, nameStart, nameEnd, skipWhitespace(content, nameEnd));
+    }
+
+    private int prefixEnd(String content, String guildId) {
+        int i = skipWhitespace(content, 0);
+        int end = prefixes.longestPrefix(content, i);
+        if (end < 0 && guildId != null) {
+            CharTrie<String> guild = guildPrefixes.get(guildId);
+            if (guild != null) end = guild.longestPrefix(content, i);
+        }
+        return end > i ? end : -1;
+    }
+
+    private static int skipWhitespace(String content, int from) {
+        while (from < content.length() && Character.isWhitespace(content.charAt(from))) from++;
+        return from;
+    }
+}
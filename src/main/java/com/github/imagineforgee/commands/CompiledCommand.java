@@ -0,0 +1,103 @@
+package com.github.imagineforgee.commands;
+
+import com.clawsoftstudios.purrfectlib.scanner.CommandInfo;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * A command class bound once at registration time.
+ * <p>
+ * {@code execute(CommandArgs, CommandContext)} and the no-arg constructor are turned into
+ * generated lambdas via {@link LambdaMetafactory}, so an invocation is a plain interface call.
+ * Classes without instance fields share a single instance; others get a fresh one per call.
+ */
+final class CompiledCommand {
+
+    @FunctionalInterface
+    interface Invoker {
+        void execute(Object command, CommandArgs args, CommandContext context);
+    }
+
+    private static final MethodType EXECUTE_TYPE = MethodType.methodType(void.class, CommandArgs.class, CommandContext.class);
+
+    private final CommandInfo info;
+    private final Invoker invoker;
+    private final Supplier<Object> factory;
+    private final Object singleton;
+
+    private CompiledCommand(CommandInfo info, Invoker invoker, Supplier<Object> factory, Object singleton) {
+        this.info = info;
+        this.invoker = invoker;
+        this.factory = factory;
+        this.singleton = singleton;
+    }
+
+    /**
+     * @throws IllegalStateException if the class lacks a public no-arg constructor or a public
+     *                               {@code void execute(CommandArgs, CommandContext)}
+     */
+    static CompiledCommand compile(CommandInfo info, MethodHandles.Lookup lookup) {
+        Class<?> type = info.getCommandClass();
+        String label = "Command '" + info.getName() + "' (" + type.getName() + ")";
+
+        MethodHandle execute;
+        MethodHandle constructor;
+        try {
+            execute = lookup.findVirtual(type, "execute", EXECUTE_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(label + " must declare public void execute(CommandArgs, CommandContext)", e);
+        }
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(label + " must have a public no-arg constructor", e);
+        }
+
+        try {
+            CallSite invokerSite = LambdaMetafactory.metafactory(lookup, "execute",
+                    MethodType.methodType(Invoker.class),
+                    MethodType.methodType(void.class, Object.class, CommandArgs.class, CommandContext.class),
+                    execute,
+                    MethodType.methodType(void.class, type, CommandArgs.class, CommandContext.class));
+            Invoker invoker = (Invoker) invokerSite.getTarget().invokeExact();
+
+            CallSite factorySite = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            @SuppressWarnings("unchecked")
+            Supplier<Object> factory = (Supplier<Object>) factorySite.getTarget().invokeExact();
+
+            Object singleton = isStateless(type) ? factory.get() : null;
+            return new CompiledCommand(info, invoker, factory, singleton);
+        } catch (Throwable e) {
+            throw new IllegalStateException(label + " could not be compiled", e);
+        }
+    }
+
+    private static boolean isStateless(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) return false;
+            }
+        }
+        return true;
+    }
+
+    void execute(CommandArgs args, CommandContext context) {
+        Object instance = singleton != null ? singleton : factory.get();
+        invoker.execute(instance, args, context);
+    }
+
+    CommandInfo getInfo() {
+        return info;
+    }
+}
@@ -1,52 +1,240 @@
 package com.github.imagineforgee.dispatch;
 
+import com.github.imagineforgee.gateway.GatewayPayload;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import reactor.core.Scannable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
 import reactor.core.publisher.Sinks;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
+/**
+ * Parses dispatch payloads into events and publishes them per event class.
+ * <p>
+ * Every subscribed class has one sink per {@link EventPipeline} lane, and each lane thread only
+ * emits into its own sinks, so lanes never contend on a sink. Each route keeps the sinks of its
+ * event class and of every subscribed supertype, so dispatch never walks the class hierarchy.
+ * {@link #onEvent} merges the lanes into one serial stream; {@link #onEventParallel} keeps them
+ * apart so a handler runs concurrently across lanes while staying ordered per guild.
+ * <p>
+ * Sinks buffer without bound, so a slow subscriber never loses message or voice events; only
+ * event types marked {@link #setDroppable droppable} are shed once a subscriber falls
+ * {@value #ROUTE_BUFFER_SIZE} events behind.
+ */
 public class EventDispatcher {
 
-    private final Sinks.Many<Event> eventSink = Sinks.many().multicast().onBackpressureBuffer();
-    private final Flux<Event> eventFlux = eventSink.asFlux();
+    private static final int ROUTE_BUFFER_SIZE = 256;
 
-    private final Map<String, Function<JsonObject, ? extends Event>> eventParsers = new ConcurrentHashMap<>();
+    private final int laneCount;
+    private final LaneSinks allEvents;
 
-    public <T extends Event> void registerParser(String eventType, Function<JsonObject, T> parser) {
-        eventParsers.put(eventType, parser);
+    private final Map<String, Route<? extends Event>> routesByType = new ConcurrentHashMap<>();
+    private final Map<Class<?>, LaneSinks> sinksByClass = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Predicate<String> droppable = eventType -> false;
+
+    public EventDispatcher() {
+        this(1);
+    }
+
+    /**
+     * @param laneCount number of lanes calling {@link #dispatch}, each from its own single thread
+     */
+    public EventDispatcher(int laneCount) {
+        this.laneCount = laneCount;
+        this.allEvents = sinkFor(Event.class);
+    }
+
+    public <T extends Event> void registerParser(String eventType, Class<T> eventClass, Function<JsonObject, T> parser) {
+        synchronized (sinksByClass) {
+            Route<T> route = new Route<>(parser, eventClass);
+            route.targets = targetsFor(eventClass);
+            routesByType.put(eventType, route);
+        }
+    }
+
+    /**
+     * Event types that may be dropped for a subscriber whose backlog is full, typically those the
+     * {@link EventPipeline} may drop too; every other type is always delivered.
+     */
+    public void setDroppable(Predicate<String> droppable) {
+        this.droppable = droppable;
+    }
+
+    /**
+     * Whether any parser is registered for the event type.
+     */
+    public boolean hasParser(String eventType) {
+        return routesByType.containsKey(eventType);
+    }
+
+    /**
+     * Whether the event type would reach a subscriber; used to skip parsing payloads nobody listens to.
+     */
+    public boolean wants(String eventType) {
+        Route<? extends Event> route = routesByType.get(eventType);
+        return route != null && anySubscribers(route.targets);
     }
 
-    public void dispatch(JsonObject gatewayPayload) {
-        if (!gatewayPayload.has("t") || !gatewayPayload.has("d")) return;
+    /**
+     * Parses and publishes one payload. Each lane must only ever be dispatched from one thread.
+     */
+    public void dispatch(GatewayPayload gatewayPayload, int lane) {
+        if (gatewayPayload.getType() == null || gatewayPayload.getData() == null) return;
 
-        String eventType = gatewayPayload.get("t").getAsString();
-        JsonElement dataEl = gatewayPayload.get("d");
+        String eventType = gatewayPayload.getType();
+        Route<? extends Event> route = routesByType.get(eventType);
+        if (route == null) return;
 
+        LaneSinks[] targets = route.targets;
+        if (!anySubscribers(targets)) return;
+
+        JsonElement dataEl = gatewayPayload.getData();
         if (!dataEl.isJsonObject()) {
             System.out.printf("[Dispatcher] Skipped event '%s' — not a JsonObject%n", eventType);
             return;
         }
 
-        JsonObject data = dataEl.getAsJsonObject();
-        Function<JsonObject, ? extends Event> parser = eventParsers.get(eventType);
-        if (parser != null) {
-            Event event = parser.apply(data);
-            eventSink.tryEmitNext(event);
+        Event event = route.parser.apply(dataEl.getAsJsonObject());
+        boolean lossy = droppable.test(eventType);
+        for (LaneSinks target : targets) {
+            if (target.hasSubscribers()) emit(target.lanes[lane], event, eventType, lossy);
+        }
+    }
+
+    private static boolean anySubscribers(LaneSinks[] targets) {
+        for (LaneSinks target : targets) {
+            if (target.hasSubscribers()) return true;
         }
+        return false;
+    }
+
+    private void emit(Sinks.Many<Event> sink, Event event, String eventType, boolean lossy) {
+        if (lossy && Scannable.from(sink).scanOrDefault(Scannable.Attr.BUFFERED, 0) >= ROUTE_BUFFER_SIZE) {
+            dropped.increment();
+            System.err.printf("[Dispatcher] Dropped '%s': subscriber %d events behind%n", eventType, ROUTE_BUFFER_SIZE);
+            return;
+        }
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            dropped.increment();
+            System.err.printf("[Dispatcher] Dropped '%s': %s%n", eventType, result);
+        }
+    }
+
+    /**
+     * Droppable events that were shed because a subscriber had fallen behind.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
     }
 
+    public int getLaneCount() {
+        return laneCount;
+    }
 
     public Flux<Event> getEventFlux() {
-        return eventFlux;
+        return allEvents.merged;
     }
 
+    /**
+     * Events of {@code clazz} or any subclass; {@code Event.class} yields every event.
+     * <p>
+     * All lanes are merged into one stream, so a subscriber sees events one at a time. A slow
+     * subscriber delays only its own events; lanes queue for it instead of waiting.
+     */
     public <T extends Event> Flux<T> onEvent(Class<T> clazz) {
-        return eventFlux
-                .filter(event -> clazz.isAssignableFrom(event.getClass()))
-                .map(clazz::cast);
+        return sinkFor(clazz).merged.map(clazz::cast);
+    }
+
+    /**
+     * Like {@link #onEvent}, with one rail per lane. A handler subscribed to the result runs
+     * concurrently across lanes, so a slow handler for one guild doesn't hold up the others,
+     * while events of one guild still arrive in order on the same rail.
+     */
+    public <T extends Event> ParallelFlux<T> onEventParallel(Class<T> clazz) {
+        return sinkFor(clazz).parallel().map(clazz::cast);
+    }
+
+    private LaneSinks sinkFor(Class<?> eventClass) {
+        LaneSinks sinks = sinksByClass.get(eventClass);
+        if (sinks != null) return sinks;
+
+        synchronized (sinksByClass) {
+            sinks = sinksByClass.get(eventClass);
+            if (sinks == null) {
+                sinks = new LaneSinks(laneCount);
+                sinksByClass.put(eventClass, sinks);
+                // a new supertype subscription has to reach every route it covers
+                for (Route<? extends Event> route : routesByType.values()) {
+                    route.targets = targetsFor(route.eventClass);
+                }
+            }
+            return sinks;
+        }
+    }
+
+    // callers hold the sinksByClass lock
+    private LaneSinks[] targetsFor(Class<?> eventClass) {
+        List<LaneSinks> targets = new ArrayList<>();
+        sinksByClass.forEach((type, sinks) -> {
+            if (type.isAssignableFrom(eventClass)) targets.add(sinks);
+        });
+        return targets.toArray(new LaneSinks[0]);
+    }
+
+    private static final class LaneSinks {
+        final Sinks.Many<Event>[] lanes;
+        final Flux<Event> merged;
+
+        @SuppressWarnings("unchecked")
+        LaneSinks(int laneCount) {
+            lanes = new Sinks.Many[laneCount];
+            Flux<Event>[] fluxes = new Flux[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                lanes[i] = newSink();
+                fluxes[i] = lanes[i].asFlux();
+            }
+            merged = laneCount == 1 ? fluxes[0] : Flux.merge(fluxes);
+        }
+
+        // every subscription, merged or parallel, subscribes to all lanes
+        boolean hasSubscribers() {
+            return lanes[0].currentSubscriberCount() > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        ParallelFlux<Event> parallel() {
+            Flux<Event>[] fluxes = new Flux[lanes.length];
+            for (int i = 0; i < lanes.length; i++) {
+                fluxes[i] = lanes[i].asFlux();
+            }
+            return ParallelFlux.from(fluxes);
+        }
+
+        // unbounded, so emission never fails with FAIL_OVERFLOW; autoCancel off so one-shot
+        // subscribers such as next() don't terminate the route
+        private static Sinks.Many<Event> newSink() {
+            return Sinks.many().multicast().onBackpressureBuffer(Integer.MAX_VALUE, false);
+        }
+    }
+
+    private static final class Route<T extends Event> {
+        final Function<JsonObject, T> parser;
+        final Class<T> eventClass;
+        volatile LaneSinks[] targets;
+
+        Route(Function<JsonObject, T> parser, Class<T> eventClass) {
+            this.parser = parser;
+            this.eventClass = eventClass;
+        }
     }
 }
@@ -0,0 +1,250 @@
+package com.github.imagineforgee.dispatch;
+
+import com.github.imagineforgee.gateway.GatewayPayload;
+import com.github.imagineforgee.util.LatencyHistogram;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Bounded hand-off between the gateway socket thread and event dispatch.
+ * <p>
+ * Payloads are queued by {@link #submit} and handed, with their lane index, to the consumer on
+ * that lane's dedicated thread. With more than
+ * one lane, payloads are hashed onto a lane by {@code guild_id} (or {@code channel_id} for DMs),
+ * so events for one guild stay in order while unrelated guilds run in parallel; payloads with
+ * neither key go to lane 0. When a lane is full, the payload's {@link OverflowPolicy} decides
+ * which event is dropped; message and voice events default to {@link OverflowPolicy#BLOCK},
+ * typing and presence updates to {@link OverflowPolicy#DROP_OLDEST}. A BLOCK event is never
+ * dropped: it evicts a droppable event if the lane holds one, and otherwise the gateway reader
+ * waits until the lane has room, logging after {@link #setStallWarning}.
+ */
+public class EventPipeline {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final Duration DEFAULT_STALL_WARNING = Duration.ofSeconds(1);
+
+    private final Lane[] lanes;
+    private final ObjIntConsumer<GatewayPayload> consumer;
+    private final Map<String, OverflowPolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> drops = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile OverflowPolicy defaultPolicy = OverflowPolicy.BLOCK;
+    private volatile long stallWarningNanos = DEFAULT_STALL_WARNING.toNanos();
+
+    public EventPipeline(Consumer<GatewayPayload> consumer) {
+        this(1, DEFAULT_CAPACITY, (payload, lane) -> consumer.accept(payload));
+    }
+
+    /**
+     * @param laneCount number of ordered lanes, or 0 for one per available core
+     * @param capacity  queue capacity of each lane
+     * @param consumer  called with each payload and its lane index, always from that lane's thread
+     */
+    public EventPipeline(int laneCount, int capacity, ObjIntConsumer<GatewayPayload> consumer) {
+        laneCount = resolveLaneCount(laneCount);
+        this.consumer = consumer;
+        this.lanes = new Lane[laneCount];
+
+        policies.put("TYPING_START", OverflowPolicy.DROP_OLDEST);
+        policies.put("PRESENCE_UPDATE", OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(i, capacity);
+            lanes[i] = lane;
+
+            int index = i;
+            Thread worker = new Thread(() -> drain(lane, index), laneCount == 1 ? "gateway-events" : "gateway-events-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * The number of lanes a pipeline created with {@code laneCount} will run.
+     */
+    public static int resolveLaneCount(int laneCount) {
+        return laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setPolicy(String eventType, OverflowPolicy policy) {
+        policies.put(eventType, policy);
+    }
+
+    public void setDefaultPolicy(OverflowPolicy policy) {
+        this.defaultPolicy = policy;
+    }
+
+    /**
+     * How long the gateway reader waits for room for a {@link OverflowPolicy#BLOCK} event before
+     * logging that the lane is stalled; it keeps waiting either way.
+     */
+    public void setStallWarning(Duration after) {
+        this.stallWarningNanos = after.toNanos();
+    }
+
+    public OverflowPolicy getPolicy(String eventType) {
+        if (eventType == null) return defaultPolicy;
+        return policies.getOrDefault(eventType, defaultPolicy);
+    }
+
+    /**
+     * Queues a payload on its lane, applying its overflow policy if the lane is full. Called on the gateway thread.
+     */
+    public void submit(GatewayPayload payload) {
+        Lane lane = lanes[laneFor(payload)];
+        BlockingQueue<Entry> queue = lane.queue;
+        Entry entry = new Entry(payload, System.nanoTime());
+        if (queue.offer(entry)) return;
+
+        OverflowPolicy policy = getPolicy(payload.getType());
+        switch (policy) {
+            case BLOCK -> {
+                // droppable events make room first; only a lane full of never-drop events is waited on
+                for (GatewayPayload evicted; (evicted = evictOldestLossy(queue)) != null; ) {
+                    recordDrop(evicted);
+                    if (queue.offer(entry)) return;
+                }
+                putWaiting(lane, entry);
+            }
+            case DROP_NEWEST -> recordDrop(payload);
+            case DROP_OLDEST -> offerEvictingLossy(queue, entry);
+        }
+    }
+
+    private void putWaiting(Lane lane, Entry entry) {
+        try {
+            if (lane.queue.offer(entry, stallWarningNanos, TimeUnit.NANOSECONDS)) return;
+            System.err.println("[Pipeline] Lane " + lane.index + " stalled for "
+                    + (stallWarningNanos / 1_000_000) + " ms, gateway reader waiting for its handler");
+            lane.queue.put(entry);
+        } catch (InterruptedException e) {
+            // only on shutdown; the reader is going away
+            Thread.currentThread().interrupt();
+            recordDrop(entry.payload);
+        }
+    }
+
+    private void offerEvictingLossy(BlockingQueue<Entry> queue, Entry entry) {
+        while (!queue.offer(entry)) {
+            GatewayPayload evicted = evictOldestLossy(queue);
+            if (evicted == null) {
+                recordDrop(entry.payload);
+                return;
+            }
+            recordDrop(evicted);
+        }
+    }
+
+    private int laneFor(GatewayPayload payload) {
+        if (lanes.length == 1) return 0;
+
+        JsonObject data = payload.getDataObject();
+        if (data == null) return 0;
+
+        JsonElement key = data.get("guild_id");
+        if (key == null || key.isJsonNull()) key = data.get("channel_id");
+        if (key == null || key.isJsonNull()) return 0;
+
+        return Math.floorMod(key.getAsString().hashCode(), lanes.length);
+    }
+
+    // never-drop events stay queued; if only those are left the incoming event loses
+    private GatewayPayload evictOldestLossy(BlockingQueue<Entry> queue) {
+        for (Iterator<Entry> it = queue.iterator(); it.hasNext(); ) {
+            GatewayPayload queued = it.next().payload;
+            if (getPolicy(queued.getType()).isLossy()) {
+                it.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    private void recordDrop(GatewayPayload payload) {
+        dropped.increment();
+        String type = payload.getType() != null ? payload.getType() : "op" + payload.getOp();
+        drops.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    private void drain(Lane lane, int index) {
+        while (true) {
+            Entry entry;
+            try {
+                entry = lane.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // an Error from a handler must not silently kill the lane and strand its queue
+            try {
+                consumer.accept(entry.payload, index);
+            } catch (Throwable t) {
+                System.err.println("[Pipeline] Failed to dispatch " + entry.payload.getType() + ": " + t);
+            }
+            lane.latency.record(System.nanoTime() - entry.enqueuedAt);
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) depth += lane.queue.size();
+        return depth;
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    /**
+     * Time from {@link #submit} until the consumer returned, for payloads handled on the given lane.
+     */
+    public LatencyHistogram getLaneLatency(int lane) {
+        return lanes[lane].latency;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public Map<String, Long> getDroppedByType() {
+        Map<String, Long> snapshot = new HashMap<>();
+        drops.forEach((type, count) -> snapshot.put(type, count.sum()));
+        return snapshot;
+    }
+
+    private static final class Lane {
+        final int index;
+        final BlockingQueue<Entry> queue;
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private static final class Entry {
+        final GatewayPayload payload;
+        final long enqueuedAt;
+
+        Entry(GatewayPayload payload, long enqueuedAt) {
+            this.payload = payload;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.imagineforgee.dispatch;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Predicate over the raw {@code MESSAGE_CREATE} payload, checked before the message is queued
+ * or turned into an event. Rejected messages never reach {@code onMessageCreate()} subscribers.
+ */
+@FunctionalInterface
+public interface MessageFilter {
+
+    boolean accept(JsonObject message);
+
+    default MessageFilter and(MessageFilter other) {
+        return message -> accept(message) && other.accept(message);
+    }
+
+    /**
+     * Content (and guild id, null in DMs) matches, e.g. starts with a command prefix.
+     */
+    static MessageFilter content(BiPredicate<String, String> contentAndGuild) {
+        return message -> contentAndGuild.test(string(message, "content", ""), string(message, "guild_id", null));
+    }
+
+    static MessageFilter authorNot(Predicate<String> excluded) {
+        return message -> {
+            JsonElement author = message.get("author");
+            if (author == null || !author.isJsonObject()) return true;
+            return !excluded.test(string(author.getAsJsonObject(), "id", null));
+        };
+    }
+
+    static MessageFilter fromChannels(Set<String> channelIds) {
+        return message -> channelIds.contains(string(message, "channel_id", null));
+    }
+
+    private static String string(JsonObject object, String member, String fallback) {
+        JsonElement value = object.get(member);
+        return value == null || value.isJsonNull() ? fallback : value.getAsString();
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.imagineforgee.dispatch;
+
+/**
+ * What {@link EventPipeline} does with an event of a given type when its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Never dropped. A droppable event is evicted to make room if there is one; otherwise the
+     * gateway reader waits for the lane, pushing backpressure onto the socket.
+     */
+    BLOCK,
+    /** Evict the oldest queued event that is itself droppable, then enqueue. */
+    DROP_OLDEST,
+    /** Discard the incoming event. */
+    DROP_NEWEST;
+
+    public boolean isLossy() {
+        return this != BLOCK;
+    }
+}
@@ -1,14 +1,17 @@
 package com.github.imagineforgee.dispatch.events;
 
 import com.github.imagineforgee.dispatch.Event;
+import com.github.imagineforgee.util.Snowflake;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 public class GuildCreateEvent implements Event {
     private final JsonObject data;
+    private final long guildIdLong;
 
     public GuildCreateEvent(JsonObject data) {
         this.data = data;
+        this.guildIdLong = Snowflake.parse(getGuildId());
     }
 
     @Override
@@ -28,4 +31,8 @@ public class GuildCreateEvent implements Event {
     public String getGuildId() {
         return data.get("id").getAsString();
     }
+
+    public long getGuildIdLong() {
+        return guildIdLong;
+    }
 }
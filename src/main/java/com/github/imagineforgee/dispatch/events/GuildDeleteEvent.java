@@ -0,0 +1,41 @@
+package com.github.imagineforgee.dispatch.events;
+
+import com.github.imagineforgee.dispatch.Event;
+import com.github.imagineforgee.util.Snowflake;
+import com.google.gson.JsonObject;
+
+public class GuildDeleteEvent implements Event {
+    private final JsonObject data;
+    private final long guildIdLong;
+
+    public GuildDeleteEvent(JsonObject data) {
+        this.data = data;
+        this.guildIdLong = Snowflake.parse(getGuildId());
+    }
+
+    @Override
+    public String getType() {
+        return "GUILD_DELETE";
+    }
+
+    @Override
+    public JsonObject getData() {
+        return data;
+    }
+
+    public String getGuildId() {
+        return data.get("id").getAsString();
+    }
+
+    public long getGuildIdLong() {
+        return guildIdLong;
+    }
+
+    /**
+     * True for an outage, after which the guild comes back with a new GUILD_CREATE; false if the
+     * user left or was removed.
+     */
+    public boolean isUnavailable() {
+        return data.has("unavailable") && !data.get("unavailable").isJsonNull() && data.get("unavailable").getAsBoolean();
+    }
+}
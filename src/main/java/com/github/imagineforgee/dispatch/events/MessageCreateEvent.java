@@ -1,6 +1,7 @@
 package com.github.imagineforgee.dispatch.events;
 
 import com.github.imagineforgee.dispatch.Event;
+import com.github.imagineforgee.util.Snowflake;
 import com.github.imagineforgee.util.VoiceStateRegistry;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -13,9 +14,16 @@ import java.util.stream.StreamSupport;
 public class MessageCreateEvent implements Event {
 
     private final JsonObject data;
+    private final long channelIdLong;
+    private final long authorIdLong;
+    private final long guildIdLong;
 
     public MessageCreateEvent(JsonObject data) {
         this.data = data;
+        // parsed once here; command routing and cooldowns read these on every message
+        this.channelIdLong = Snowflake.parse(getChannelId());
+        this.authorIdLong = Snowflake.parse(getAuthorId());
+        this.guildIdLong = Snowflake.parse(getGuildId());
     }
 
     @Override
@@ -44,8 +52,21 @@ public class MessageCreateEvent implements Event {
         return data.get("id").getAsString();
     }
 
+    public long getChannelIdLong() {
+        return channelIdLong;
+    }
+
+    public long getAuthorIdLong() {
+        return authorIdLong;
+    }
+
+    public long getGuildIdLong() {
+        return guildIdLong;
+    }
+
     public String getUserVoiceChannelId() {
-        return VoiceStateRegistry.get(this.getAuthorId());
+        long channelId = VoiceStateRegistry.get(getAuthorIdLong());
+        return channelId == 0 ? null : Snowflake.format(channelId);
     }
 
     public String getGuildId() {
@@ -1,6 +1,7 @@
 package com.github.imagineforgee.dispatch.events;
 
 import com.github.imagineforgee.dispatch.Event;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 public class ReadyEvent implements Event {
@@ -26,4 +27,11 @@ public class ReadyEvent implements Event {
     public String getUserId() {
         return userId;
     }
+
+    /**
+     * Guild objects sent with READY; full guilds for user accounts, unavailable stubs for bots.
+     */
+    public JsonArray getGuilds() {
+        return data.has("guilds") ? data.getAsJsonArray("guilds") : new JsonArray();
+    }
 }
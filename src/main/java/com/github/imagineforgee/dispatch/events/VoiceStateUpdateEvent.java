@@ -1,6 +1,7 @@
 package com.github.imagineforgee.dispatch.events;
 
 import com.github.imagineforgee.dispatch.Event;
+import com.github.imagineforgee.util.Snowflake;
 import com.google.gson.JsonObject;
 
 public class VoiceStateUpdateEvent implements Event {
@@ -10,6 +11,9 @@ public class VoiceStateUpdateEvent implements Event {
     private final String guildId;
     private final String channelId;
     private final String sessionId;
+    private final long userIdLong;
+    private final long guildIdLong;
+    private final long channelIdLong;
     private final boolean selfMute;
     private final boolean selfDeaf;
 
@@ -27,6 +31,9 @@ public class VoiceStateUpdateEvent implements Event {
                 : null;
         this.selfMute = data.has("self_mute") && data.get("self_mute").getAsBoolean();
         this.selfDeaf = data.has("self_deaf") && data.get("self_deaf").getAsBoolean();
+        this.userIdLong = Snowflake.parse(userId);
+        this.guildIdLong = Snowflake.parse(guildId);
+        this.channelIdLong = Snowflake.parse(channelId);
     }
 
     @Override
@@ -51,6 +58,21 @@ public class VoiceStateUpdateEvent implements Event {
         return channelId;
     }
 
+    public long getUserIdLong() {
+        return userIdLong;
+    }
+
+    public long getGuildIdLong() {
+        return guildIdLong;
+    }
+
+    /**
+     * 0 when the user left voice.
+     */
+    public long getChannelIdLong() {
+        return channelIdLong;
+    }
+
     public String getSessionId() {
         return sessionId;
     }
@@ -3,103 +3,306 @@ package com.github.imagineforgee.gateway;
 import com.google.gson.*;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
+import reactor.core.Disposable;
 import reactor.core.publisher.*;
-import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Duration;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
 
 public class GatewayClient {
 
+    private static final String GATEWAY_QUERY = "/?v=10&encoding=json&compress=zlib-stream";
+    private static final long RECONNECT_BASE_MS = 500;
+    private static final long RECONNECT_MAX_MS = 60_000;
+
     private final String token;
-    private final URI gatewayUri = URI.create("wss://gateway.discord.gg/?v=10&encoding=json");
-    private WebSocketClient client;
+    private final URI gatewayUri = URI.create("wss://gateway.discord.gg" + GATEWAY_QUERY);
+    private volatile WebSocketClient client;
+
+    // delivered synchronously on the socket thread; consumers hand off to a bounded EventPipeline
+    private final Sinks.Many<GatewayPayload> sink = Sinks.many().multicast().directBestEffort();
+    private final Flux<GatewayPayload> eventFlux = sink.asFlux();
 
-    private final Sinks.Many<JsonObject> sink = Sinks.many().multicast().onBackpressureBuffer();
-    private final Flux<JsonObject> eventFlux = sink.asFlux().publishOn(Schedulers.boundedElastic());
+    private volatile Predicate<String> dispatchFilter = type -> true;
+    private final GatewayPayloadReader payloadReader = new GatewayPayloadReader(
+            type -> "READY".equals(type) || dispatchFilter.test(type));
+    private final ZlibStreamDecoder zlibDecoder = new ZlibStreamDecoder();
 
-    private Timer heartbeatTimer;
+    private volatile Disposable heartbeat;
+    private volatile boolean heartbeatAcked = true;
+    private volatile long lastHeartbeatNanos;
+    private volatile long latencyNanos = -1;
     private final AtomicInteger sequence = new AtomicInteger(-1);
 
+    private volatile String sessionId;
+    private volatile String resumeGatewayUrl;
+    private volatile boolean shouldReconnect = true;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger();
+
     public GatewayClient(String token) {
         this.token = token;
     }
 
-    public Flux<JsonObject> getEventFlux() {
+    public Flux<GatewayPayload> getEventFlux() {
         return eventFlux;
     }
 
+    /**
+     * Limits which dispatch types have their {@code d} payload parsed; others are skipped while reading.
+     */
+    public void setDispatchFilter(Predicate<String> dispatchFilter) {
+        this.dispatchFilter = dispatchFilter;
+    }
+
     public Mono<Void> connect() {
         return Mono.create(sink -> {
-            this.client = new WebSocketClient(gatewayUri) {
-                @Override
-                public void onOpen(ServerHandshake handshake) {
-                    System.out.println("[Gateway] Connected.");
-                }
+            shouldReconnect = true;
+            this.client = createSocket(gatewayUri);
+            try {
+                client.connectBlocking();
+                sink.success();
+            } catch (InterruptedException e) {
+                sink.error(e);
+            }
+        });
+    }
 
-                @Override
-                public void onMessage(String message) {
-                    JsonObject json = JsonParser.parseString(message).getAsJsonObject();
-                    if (json.has("s") && !json.get("s").isJsonNull()) {
-                        sequence.set(json.get("s").getAsInt());
-                    }
+    /**
+     * Closes the socket without reconnecting. A normal closure invalidates the session on Discord's side.
+     */
+    public void disconnect() {
+        shouldReconnect = false;
+        stopHeartbeat();
+        if (client != null) client.close(1000);
+    }
 
-                    int op = json.get("op").getAsInt();
-                    switch (op) {
-                        case 10 -> handleHello(json.getAsJsonObject("d"));
-                        case 11 -> System.out.println("[Gateway] Heartbeat ACK");
-                        default -> this.sendToSink(json);
-                    }
+    private WebSocketClient createSocket(URI uri) {
+        return new WebSocketClient(uri) {
+            @Override
+            public void onOpen(ServerHandshake handshake) {
+                System.out.println("[Gateway] Connected.");
+                zlibDecoder.reset();
+            }
+
+            @Override
+            public void onMessage(String message) {
+                handlePayload(new StringReader(message));
+            }
+
+            @Override
+            public void onMessage(ByteBuffer bytes) {
+                if (!zlibDecoder.feed(bytes)) return;
+                try {
+                    handlePayload(zlibDecoder.inflate());
+                } catch (DataFormatException e) {
+                    System.err.println("[Gateway] Failed to inflate payload: " + e.getMessage());
+                    // the inflater is shared by the whole connection, so resume on a fresh stream
+                    close(4000);
                 }
+            }
 
-                @Override
-                public void onClose(int code, String reason, boolean remote) {
-                    System.out.println("[Gateway] Disconnected: " + reason);
-                    if (heartbeatTimer != null) heartbeatTimer.cancel();
+            private void handlePayload(Reader message) {
+                GatewayPayload payload;
+                try {
+                    payload = payloadReader.read(message);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("[Gateway] Failed to parse payload: " + e.getMessage());
+                    return;
                 }
 
-                @Override
-                public void onError(Exception ex) {
-                    ex.printStackTrace();
+                if (payload.getSequence() >= 0) {
+                    sequence.set(payload.getSequence());
                 }
 
-                private void sendToSink(JsonObject payload) {
-                    GatewayClient.this.sink.tryEmitNext(payload);
+                switch (payload.getOp()) {
+                    case 0 -> {
+                        handleDispatch(payload);
+                        this.sendToSink(payload);
+                    }
+                    case 7 -> {
+                        System.out.println("[Gateway] Server requested reconnect.");
+                        close(4000);
+                    }
+                    case 9 -> handleInvalidSession(payload.getData());
+                    case 10 -> handleHello(payload.getDataObject());
+                    case 1 -> sendHeartbeat(this);
+                    case 11 -> handleHeartbeatAck();
+                    default -> this.sendToSink(payload);
                 }
-            };
+            }
 
-            try {
-                client.connectBlocking();
-                sink.success();
-            } catch (InterruptedException e) {
-                sink.error(e);
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+                System.out.println("[Gateway] Disconnected (" + code + "): " + reason);
+                if (GatewayClient.this.client != this) return;
+                stopHeartbeat();
+                handleClose(code);
             }
-        });
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            private void sendToSink(GatewayPayload payload) {
+                Sinks.EmitResult result = GatewayClient.this.sink.tryEmitNext(payload);
+                if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                    System.err.println("[Gateway] Dropped payload op " + payload.getOp() + ": " + result);
+                }
+            }
+        };
     }
 
     private void handleHello(JsonObject helloData) {
         int interval = helloData.get("heartbeat_interval").getAsInt();
         startHeartbeat(interval);
-        sendIdentify();
+        if (canResume()) sendResume();
+        else sendIdentify();
     }
 
-    private void startHeartbeat(int intervalMs) {
-        heartbeatTimer = new Timer();
-        heartbeatTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                JsonObject heartbeat = new JsonObject();
-                heartbeat.addProperty("op", 1);
-                if (sequence.get() == -1) heartbeat.add("d", JsonNull.INSTANCE);
-                else heartbeat.addProperty("d", sequence.get());
-                client.send(heartbeat.toString());
-                System.out.println("[Gateway] Heartbeat sent.");
+    private void handleDispatch(GatewayPayload payload) {
+        if ("READY".equals(payload.getType())) {
+            JsonObject data = payload.getDataObject();
+            if (data == null) return;
+            sessionId = data.get("session_id").getAsString();
+            if (data.has("resume_gateway_url")) {
+                resumeGatewayUrl = data.get("resume_gateway_url").getAsString();
             }
-        }, 0, intervalMs);
+            reconnectAttempts.set(0);
+        } else if ("RESUMED".equals(payload.getType())) {
+            System.out.println("[Gateway] Session resumed at sequence " + sequence.get() + ".");
+            reconnectAttempts.set(0);
+        }
+    }
+
+    private void handleInvalidSession(JsonElement data) {
+        boolean resumable = data != null && data.isJsonPrimitive() && data.getAsBoolean();
+        System.out.println("[Gateway] Invalid session (resumable: " + resumable + ").");
+        if (!resumable) clearSession();
+
+        // Discord asks for a 1-5 second wait before identifying again
+        long delay = ThreadLocalRandom.current().nextLong(1000, 5001);
+        Mono.delay(Duration.ofMillis(delay)).subscribe(t -> {
+            if (client == null || !client.isOpen()) return;
+            if (canResume()) sendResume();
+            else sendIdentify();
+        });
+    }
+
+    private void handleClose(int code) {
+        if (!shouldReconnect) return;
+
+        switch (code) {
+            case 4004, 4010, 4011, 4012, 4013, 4014 -> {
+                System.err.println("[Gateway] Close code " + code + " is not recoverable, giving up.");
+                return;
+            }
+            case 4007, 4009 -> clearSession();
+            default -> { }
+        }
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        int attempt = reconnectAttempts.getAndIncrement();
+        long delay = backoffMillis(attempt);
+        boolean resume = canResume();
+        URI uri = resume && resumeGatewayUrl != null ? resumeUri(resumeGatewayUrl) : gatewayUri;
+
+        System.out.println("[Gateway] Reconnecting in " + delay + "ms (attempt " + (attempt + 1)
+                + ", " + (resume ? "resume" : "identify") + ").");
+        Mono.delay(Duration.ofMillis(delay)).subscribe(t -> {
+            if (!shouldReconnect) return;
+            client = createSocket(uri);
+            client.connect();
+        });
+    }
+
+    /**
+     * Full-jitter exponential backoff; the first attempt goes out immediately.
+     */
+    private static long backoffMillis(int attempt) {
+        if (attempt == 0) return 0;
+        long ceiling = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(RECONNECT_BASE_MS, ceiling + 1);
+    }
+
+    private static URI resumeUri(String url) {
+        if (url.endsWith("/")) url = url.substring(0, url.length() - 1);
+        return URI.create(url + GATEWAY_QUERY);
+    }
+
+    private boolean canResume() {
+        return sessionId != null && sequence.get() >= 0;
+    }
+
+    private void clearSession() {
+        sessionId = null;
+        resumeGatewayUrl = null;
+        sequence.set(-1);
+    }
+
+    /**
+     * Round-trip time of the last heartbeat, or -1 before the first ACK.
+     */
+    public long getLatencyMillis() {
+        long latency = latencyNanos;
+        return latency < 0 ? -1 : latency / 1_000_000;
+    }
+
+    private void stopHeartbeat() {
+        Disposable current = heartbeat;
+        if (current != null) current.dispose();
+    }
+
+    private void startHeartbeat(int intervalMs) {
+        stopHeartbeat();
+        heartbeatAcked = true;
+
+        WebSocketClient socket = client;
+        long jitter = (long) (intervalMs * ThreadLocalRandom.current().nextDouble());
+        heartbeat = Flux.interval(Duration.ofMillis(jitter), Duration.ofMillis(intervalMs))
+                .subscribe(t -> beat(socket));
+    }
+
+    private void beat(WebSocketClient socket) {
+        if (!heartbeatAcked) {
+            // zombie connection: drop it without a close handshake and resume on a fresh socket
+            System.err.println("[Gateway] Heartbeat not acknowledged, reconnecting.");
+            stopHeartbeat();
+            socket.closeConnection(4000, "Heartbeat ACK timeout");
+            return;
+        }
+        heartbeatAcked = false;
+        sendHeartbeat(socket);
+    }
+
+    private void sendHeartbeat(WebSocketClient socket) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("op", 1);
+        if (sequence.get() == -1) payload.add("d", JsonNull.INSTANCE);
+        else payload.addProperty("d", sequence.get());
+
+        try {
+            lastHeartbeatNanos = System.nanoTime();
+            socket.send(payload.toString());
+        } catch (RuntimeException e) {
+            System.err.println("[Gateway] Failed to send heartbeat: " + e.getMessage());
+        }
+    }
+
+    private void handleHeartbeatAck() {
+        heartbeatAcked = true;
+        latencyNanos = System.nanoTime() - lastHeartbeatNanos;
+        System.out.println("[Gateway] Heartbeat ACK (" + getLatencyMillis() + "ms)");
     }
 
     public Mono<Void> send(JsonObject payload) {
@@ -134,4 +337,19 @@ public class GatewayClient {
 
         System.out.println("[Gateway] Identify sent.");
     }
+
+    private void sendResume() {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("op", 6);
+
+        JsonObject data = new JsonObject();
+        data.addProperty("token", token);
+        data.addProperty("session_id", sessionId);
+        data.addProperty("seq", sequence.get());
+
+        payload.add("d", data);
+        client.send(payload.toString());
+
+        System.out.println("[Gateway] Resume sent for sequence " + sequence.get() + ".");
+    }
 }
\ No newline at end of file
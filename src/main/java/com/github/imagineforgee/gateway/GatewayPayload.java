@@ -0,0 +1,54 @@
+package com.github.imagineforgee.gateway;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * A gateway frame split into its envelope fields. The {@code d} field is only materialized
+ * when something will consume it; otherwise {@link #getData()} returns null.
+ */
+public class GatewayPayload {
+    public static final int OP_DISPATCH = 0;
+
+    private final int op;
+    private final int sequence;
+    private final String type;
+    private final JsonElement data;
+
+    public GatewayPayload(int op, int sequence, String type, JsonElement data) {
+        this.op = op;
+        this.sequence = sequence;
+        this.type = type;
+        this.data = data;
+    }
+
+    public int getOp() {
+        return op;
+    }
+
+    /**
+     * The {@code s} field, or -1 if the frame carried none.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * The {@code t} field, e.g. MESSAGE_CREATE; null for non-dispatch frames.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public JsonElement getData() {
+        return data;
+    }
+
+    public JsonObject getDataObject() {
+        return data != null && data.isJsonObject() ? data.getAsJsonObject() : null;
+    }
+
+    public boolean isDispatch() {
+        return op == OP_DISPATCH;
+    }
+}
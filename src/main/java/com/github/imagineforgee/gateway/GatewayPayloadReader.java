@@ -0,0 +1,80 @@
+package com.github.imagineforgee.gateway;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Predicate;
+
+/**
+ * Streaming pre-parser for gateway frames.
+ * <p>
+ * Reads {@code op}, {@code s} and {@code t} with a {@link JsonReader} and only builds a Gson
+ * tree for {@code d} when the dispatch type is wanted; unwanted payloads are skipped token by
+ * token without allocating. Discord sends {@code t} before {@code d}, but if {@code d} arrives
+ * first it is materialized and dropped afterwards if unwanted.
+ */
+public class GatewayPayloadReader {
+    private final Predicate<String> wantsDispatch;
+
+    /**
+     * @param wantsDispatch decides, per dispatch type, whether its {@code d} field is needed
+     */
+    public GatewayPayloadReader(Predicate<String> wantsDispatch) {
+        this.wantsDispatch = wantsDispatch;
+    }
+
+    public GatewayPayload read(Reader source) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        int op = -1;
+        int sequence = -1;
+        String type = null;
+        boolean typeSeen = false;
+        JsonElement data = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "op" -> op = reader.nextInt();
+                case "s" -> sequence = nextNullableInt(reader);
+                case "t" -> {
+                    type = nextNullableString(reader);
+                    typeSeen = true;
+                }
+                case "d" -> {
+                    if (!typeSeen || type == null || wantsDispatch.test(type)) {
+                        data = JsonParser.parseReader(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (data != null && type != null && !wantsDispatch.test(type)) {
+            data = null;
+        }
+        return new GatewayPayload(op, sequence, type, data);
+    }
+
+    private static int nextNullableInt(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return -1;
+        }
+        return reader.nextInt();
+    }
+
+    private static String nextNullableString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.imagineforgee.gateway;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decoder for the gateway's {@code compress=zlib-stream} transport.
+ * <p>
+ * The whole connection is one zlib stream, so a single {@link Inflater} is kept for its
+ * lifetime. Binary frames are buffered until the {@code 00 00 FF FF} sync-flush suffix marks
+ * the end of a message, then inflated into a reusable buffer. Not thread-safe; call it from
+ * the socket's read thread only.
+ */
+public class ZlibStreamDecoder {
+    private static final int ZLIB_SUFFIX = 0x0000FFFF;
+
+    private Inflater inflater = new Inflater();
+    private byte[] input = new byte[16 * 1024];
+    private int inputLength;
+    private byte[] output = new byte[64 * 1024];
+
+    /**
+     * Appends a binary frame.
+     *
+     * @return true once a complete message is buffered and {@link #inflate()} can be called
+     */
+    public boolean feed(ByteBuffer frame) {
+        int length = frame.remaining();
+        if (inputLength + length > input.length) {
+            input = Arrays.copyOf(input, Math.max(input.length * 2, inputLength + length));
+        }
+        frame.get(input, inputLength, length);
+        inputLength += length;
+
+        return inputLength >= 4 && readSuffix() == ZLIB_SUFFIX;
+    }
+
+    /**
+     * Inflates the buffered message and returns a reader over the decompressed JSON. The reader
+     * is backed by the shared output buffer and is only valid until the next call.
+     *
+     * @throws DataFormatException if the data is corrupt or the zlib stream has already ended;
+     *                             either way the stream can't continue and needs a new socket
+     */
+    public Reader inflate() throws DataFormatException {
+        if (inflater.finished()) {
+            inputLength = 0;
+            throw new DataFormatException("zlib stream has already ended");
+        }
+        inflater.setInput(input, 0, inputLength);
+        inputLength = 0;
+
+        int total = 0;
+        do {
+            if (total == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            int inflated = inflater.inflate(output, total, output.length - total);
+            if (inflated == 0 && inflater.needsDictionary()) {
+                throw new DataFormatException("zlib stream requested a preset dictionary");
+            }
+            total += inflated;
+            // past the end of the stream inflate() returns 0 without ever needing input
+            if (inflater.finished()) break;
+        } while (!inflater.needsInput() || total == output.length);
+
+        return new InputStreamReader(new ByteArrayInputStream(output, 0, total), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Starts a fresh zlib stream; call whenever a new socket is opened.
+     */
+    public void reset() {
+        inflater.end();
+        inflater = new Inflater();
+        inputLength = 0;
+    }
+
+    private int readSuffix() {
+        int i = inputLength - 4;
+        return ((input[i] & 0xFF) << 24) | ((input[i + 1] & 0xFF) << 16)
+                | ((input[i + 2] & 0xFF) << 8) | (input[i + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.imagineforgee.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+
+/**
+ * Key handling shared by {@link LongLongMap} and {@link LongObjectMap}.
+ * <p>
+ * Keys are spread over lock-striped segments, each an open-addressing table with linear probing
+ * and backward-shift deletion. Subclasses only supply the parallel value array, typed to avoid
+ * boxing, and do their reads optimistically under the segment's {@link StampedLock}. Key
+ * {@code 0} marks empty slots and cannot be stored, which suits snowflake ids.
+ */
+abstract class LongKeyTable<S extends LongKeyTable.Segment> {
+    static final int SEGMENT_BITS = 4;
+    static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    final S[] segments;
+
+    LongKeyTable(S[] segments, int expectedSize, IntFunction<S> factory) {
+        this.segments = segments;
+        int perSegment = segmentCapacity(expectedSize);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = factory.apply(perSegment);
+    }
+
+    static int segmentCapacity(int expectedSize) {
+        return Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize / SEGMENTS) * 2 - 1) * 2);
+    }
+
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    static void checkKey(long key) {
+        if (key == 0) throw new IllegalArgumentException("key 0 is reserved");
+    }
+
+    final S segmentFor(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    public boolean containsKey(long key) {
+        long hash = mix(key);
+        S segment = segmentFor(hash);
+
+        long stamp = segment.lock.tryOptimisticRead();
+        boolean found = segment.indexOf(key, hash) >= 0;
+        if (segment.lock.validate(stamp)) return found;
+
+        stamp = segment.lock.readLock();
+        try {
+            return segment.indexOf(key, hash) >= 0;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (S segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (S segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    abstract static class Segment {
+        final StampedLock lock = new StampedLock();
+        long[] keys;
+        int size;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+        }
+
+        /**
+         * Replaces the value array with an empty one of the given capacity and returns the old one.
+         */
+        abstract Object swapValues(int capacity);
+
+        /**
+         * Copies the value at {@code from} in {@code source}, an array from {@link #swapValues},
+         * into slot {@code to} of the current values.
+         */
+        abstract void copyValue(Object source, int from, int to);
+
+        abstract void moveValue(int from, int to);
+
+        abstract void clearValue(int i);
+
+        /**
+         * Slot of {@code key} in {@code keys}, or -1. Safe on arrays read without the lock.
+         */
+        static int probe(long[] keys, long key, long hash) {
+            if (key == 0) return -1; // the empty-slot marker is never a stored key
+            int mask = keys.length - 1;
+            for (int i = (int) hash & mask, probes = 0; probes < keys.length; i = (i + 1) & mask, probes++) {
+                long k = keys[i];
+                if (k == key) return i;
+                if (k == 0) return -1;
+            }
+            return -1;
+        }
+
+        final int indexOf(long key, long hash) {
+            return probe(keys, key, hash);
+        }
+
+        /**
+         * Slot holding {@code key}, or {@code -(slot + 1)} for the empty slot it should go in.
+         * Grows the table first if one more key would fill it past half, so the slot stays valid
+         * for {@link #insertAt}.
+         */
+        final int slotFor(long key, long hash) {
+            if ((size + 1) * 2 > keys.length) resize();
+
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) return i;
+                i = (i + 1) & mask;
+            }
+            return -(i + 1);
+        }
+
+        /**
+         * Claims an empty slot from {@link #slotFor}; the caller stores the value.
+         */
+        final void insertAt(int i, long key) {
+            keys[i] = key;
+            size++;
+        }
+
+        final void removeAt(int i) {
+            long[] keys = this.keys;
+            int mask = keys.length - 1;
+            size--;
+            // shift later entries of the probe chain back so lookups never stop at the hole
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = (int) mix(keys[j]) & mask;
+                boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (movable) {
+                    keys[i] = keys[j];
+                    moveValue(j, i);
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            clearValue(i);
+        }
+
+        final void resize() {
+            long[] oldKeys = keys;
+            long[] newKeys = new long[oldKeys.length * 2];
+            Object oldValues = swapValues(newKeys.length);
+            int mask = newKeys.length - 1;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                long key = oldKeys[i];
+                if (key == 0) continue;
+                int j = (int) mix(key) & mask;
+                while (newKeys[j] != 0) j = (j + 1) & mask;
+                newKeys[j] = key;
+                copyValue(oldValues, i, j);
+            }
+            keys = newKeys;
+        }
+
+        final void clear() {
+            Arrays.fill(keys, 0);
+            swapValues(keys.length);
+            size = 0;
+        }
+    }
+}
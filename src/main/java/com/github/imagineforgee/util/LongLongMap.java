@@ -0,0 +1,162 @@
+package com.github.imagineforgee.util;
+
+/**
+ * Concurrent map from {@code long} to {@code long} without boxing.
+ * <p>
+ * Lock-striped open-addressing segments with optimistic reads; see {@link LongKeyTable}. Key
+ * {@code 0} is reserved.
+ */
+public final class LongLongMap extends LongKeyTable<LongLongMap.Segment> {
+
+    public LongLongMap() {
+        this(64);
+    }
+
+    public LongLongMap(int expectedSize) {
+        super(new Segment[SEGMENTS], expectedSize, Segment::new);
+    }
+
+    public long get(long key, long defaultValue) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.lock.tryOptimisticRead();
+        long value = segment.find(key, hash, defaultValue);
+        if (segment.lock.validate(stamp)) return value;
+
+        stamp = segment.lock.readLock();
+        try {
+            return segment.find(key, hash, defaultValue);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the previous value, or {@code defaultValue} if the key was absent
+     */
+    public long put(long key, long value, long defaultValue) {
+        checkKey(key);
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.slotFor(key, hash);
+            if (slot >= 0) {
+                long previous = segment.values[slot];
+                segment.values[slot] = value;
+                return previous;
+            }
+            slot = -slot - 1;
+            segment.insertAt(slot, key);
+            segment.values[slot] = value;
+            return defaultValue;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void put(long key, long value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * @return the removed value, or {@code defaultValue} if the key was absent
+     */
+    public long remove(long key, long defaultValue) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int i = segment.indexOf(key, hash);
+            if (i < 0) return defaultValue;
+            long removed = segment.values[i];
+            segment.removeAt(i);
+            return removed;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return whether the key was present
+     */
+    public boolean remove(long key) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int i = segment.indexOf(key, hash);
+            if (i < 0) return false;
+            segment.removeAt(i);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    /**
+     * Visits a consistent snapshot of each segment; entries added concurrently may or may not be seen.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (Segment segment : segments) {
+            long[] keys;
+            long[] values;
+            long stamp = segment.lock.readLock();
+            try {
+                keys = segment.keys.clone();
+                values = segment.values.clone();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    static final class Segment extends LongKeyTable.Segment {
+        long[] values;
+
+        Segment(int capacity) {
+            super(capacity);
+            values = new long[capacity];
+        }
+
+        long find(long key, long hash, long defaultValue) {
+            long[] keys = this.keys;
+            long[] values = this.values;
+            if (keys.length != values.length) return defaultValue; // torn optimistic read, caller retries
+
+            int i = probe(keys, key, hash);
+            return i < 0 ? defaultValue : values[i];
+        }
+
+        @Override
+        Object swapValues(int capacity) {
+            long[] old = values;
+            values = new long[capacity];
+            return old;
+        }
+
+        @Override
+        void copyValue(Object source, int from, int to) {
+            values[to] = ((long[]) source)[from];
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clearValue(int i) {
+            values[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.imagineforgee.util;
+
+import java.util.function.LongFunction;
+
+/**
+ * Concurrent map from {@code long} keys to objects without boxing the key.
+ * <p>
+ * Lock-striped open-addressing segments with optimistic reads; see {@link LongKeyTable}. Key
+ * {@code 0} is reserved and null values are not allowed.
+ */
+public final class LongObjectMap<V> extends LongKeyTable<LongObjectMap.Segment> {
+
+    public LongObjectMap() {
+        this(64);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        super(new Segment[SEGMENTS], expectedSize, Segment::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.lock.tryOptimisticRead();
+        Object value = segment.find(key, hash);
+        if (segment.lock.validate(stamp)) return (V) value;
+
+        stamp = segment.lock.readLock();
+        try {
+            return (V) segment.find(key, hash);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the previous value, or null
+     */
+    public V put(long key, V value) {
+        if (value == null) throw new NullPointerException("value");
+        return store(key, value, true);
+    }
+
+    /**
+     * @return the existing value, or null if {@code value} was stored
+     */
+    public V putIfAbsent(long key, V value) {
+        if (value == null) throw new NullPointerException("value");
+        return store(key, value, false);
+    }
+
+    /**
+     * Runs {@code factory} under the segment's write lock, so it must be cheap; build expensive
+     * values first and use {@link #putIfAbsent}.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        V existing = get(key);
+        if (existing != null) return existing;
+        checkKey(key);
+
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            existing = valueAt(segment, segment.indexOf(key, hash));
+            if (existing != null) return existing;
+
+            V created = factory.apply(key);
+            if (created != null) store(segment, key, hash, created, false);
+            return created;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the removed value, or null
+     */
+    public V remove(long key) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int i = segment.indexOf(key, hash);
+            V removed = valueAt(segment, i);
+            if (removed != null) segment.removeAt(i);
+            return removed;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the entry only while it still maps to {@code expected} (compared by identity).
+     *
+     * @return whether the entry was removed
+     */
+    public boolean remove(long key, V expected) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int i = segment.indexOf(key, hash);
+            if (i < 0 || segment.values[i] != expected) return false;
+            segment.removeAt(i);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    private V store(long key, V value, boolean replace) {
+        checkKey(key);
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return store(segment, key, hash, value, replace);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    // caller holds the write lock
+    private V store(Segment segment, long key, long hash, V value, boolean replace) {
+        int slot = segment.slotFor(key, hash);
+        if (slot >= 0) {
+            V previous = valueAt(segment, slot);
+            if (replace) segment.values[slot] = value;
+            return previous;
+        }
+        slot = -slot - 1;
+        segment.insertAt(slot, key);
+        segment.values[slot] = value;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(Segment segment, int i) {
+        return i < 0 ? null : (V) segment.values[i];
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Visits a consistent snapshot of each segment; entries added concurrently may or may not be seen.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (Segment segment : segments) {
+            long[] keys;
+            Object[] values;
+            long stamp = segment.lock.readLock();
+            try {
+                keys = segment.keys.clone();
+                values = segment.values.clone();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    static final class Segment extends LongKeyTable.Segment {
+        Object[] values;
+
+        Segment(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+
+        Object find(long key, long hash) {
+            long[] keys = this.keys;
+            Object[] values = this.values;
+            if (keys.length != values.length) return null; // torn optimistic read, caller retries
+
+            int i = probe(keys, key, hash);
+            return i < 0 ? null : values[i];
+        }
+
+        @Override
+        Object swapValues(int capacity) {
+            Object[] old = values;
+            values = new Object[capacity];
+            return old;
+        }
+
+        @Override
+        void copyValue(Object source, int from, int to) {
+            values[to] = ((Object[]) source)[from];
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clearValue(int i) {
+            values[i] = null;
+        }
+    }
+}
@@ -19,6 +19,25 @@ public final class Snowflake {
         return new Snowflake(Long.parseUnsignedLong(idStr));
     }
 
+    /**
+     * Parses an id string to its raw value without allocating; 0 if null, empty or not a valid id.
+     */
+    public static long parse(String idStr) {
+        if (idStr == null || idStr.isEmpty() || idStr.length() > 19) return 0;
+        long id = 0;
+        for (int i = 0; i < idStr.length(); i++) {
+            int digit = idStr.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return 0;
+            id = id * 10 + digit;
+        }
+        // 19-digit values past Long.MAX_VALUE wrap negative
+        return id < 0 ? 0 : id;
+    }
+
+    public static String format(long id) {
+        return Long.toUnsignedString(id);
+    }
+
     public long getId() {
         return id;
     }
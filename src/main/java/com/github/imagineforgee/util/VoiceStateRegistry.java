@@ -1,18 +1,169 @@
 package com.github.imagineforgee.util;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
+import java.util.Arrays;
+
+/**
+ * Voice-state cache: which channel each user is in, and who is in each channel, per guild.
+ * <p>
+ * Guilds are bulk-loaded from the {@code voice_states} of {@code GUILD_CREATE} (and of the guilds
+ * embedded in {@code READY}) and then kept current from {@code VOICE_STATE_UPDATE}. Channel member
+ * lists are immutable arrays swapped on change, so lookups and occupancy counts never lock;
+ * writers serialize on the guild's channel map.
+ */
 public class VoiceStateRegistry {
-    private static final ConcurrentMap<String,String> userToChannel = new ConcurrentHashMap<>();
+    private static final long[] EMPTY = new long[0];
+
+    private static final LongLongMap userToChannel = new LongLongMap(1024);
+    private static final LongLongMap channelToGuild = new LongLongMap(256);
+    private static final LongObjectMap<LongObjectMap<long[]>> guilds = new LongObjectMap<>();
+
+    public static void update(long guildId, long userId, long channelId) {
+        if (userId == 0) return;
+
+        long previous = channelId == 0 ? userToChannel.remove(userId, 0) : userToChannel.put(userId, channelId, 0);
+        if (previous == channelId) return;
+
+        if (previous != 0) {
+            long previousGuild = channelToGuild.get(previous, guildId);
+            LongObjectMap<long[]> channels = guilds.get(previousGuild);
+            if (channels != null) {
+                synchronized (channels) {
+                    removeMember(channels, previous, userId);
+                }
+            }
+        }
+        if (channelId != 0 && guildId != 0) {
+            LongObjectMap<long[]> channels = guilds.computeIfAbsent(guildId, g -> new LongObjectMap<>(16));
+            synchronized (channels) {
+                channelToGuild.put(channelId, guildId);
+                addMember(channels, channelId, userId);
+            }
+        }
+    }
+
+    /**
+     * Updates the user's channel without guild context; channel membership is only tracked for known channels.
+     */
+    public static void update(long userId, long channelId) {
+        update(channelToGuild.get(channelId, 0), userId, channelId);
+    }
+
+    /**
+     * Replaces everything known about a guild with its {@code voice_states} array, in one pass.
+     */
+    public static void loadGuild(long guildId, JsonArray voiceStates) {
+        if (guildId == 0) return;
+
+        LongObjectMap<long[]> channels = guilds.computeIfAbsent(guildId, g -> new LongObjectMap<>(16));
+        synchronized (channels) {
+            channels.forEach((channelId, members) -> {
+                for (long member : members) {
+                    if (userToChannel.get(member, 0) == channelId) userToChannel.remove(member);
+                }
+                channelToGuild.remove(channelId);
+            });
+            channels.clear();
+
+            for (JsonElement element : voiceStates) {
+                JsonObject state = element.getAsJsonObject();
+                long userId = Snowflake.parse(string(state, "user_id"));
+                long channelId = Snowflake.parse(string(state, "channel_id"));
+                if (userId == 0 || channelId == 0) continue;
+
+                userToChannel.put(userId, channelId);
+                channelToGuild.put(channelId, guildId);
+                addMember(channels, channelId, userId);
+            }
+        }
+    }
+
+    public static void removeGuild(long guildId) {
+        LongObjectMap<long[]> channels = guilds.remove(guildId);
+        if (channels == null) return;
+        synchronized (channels) {
+            channels.forEach((channelId, members) -> {
+                for (long member : members) {
+                    if (userToChannel.get(member, 0) == channelId) userToChannel.remove(member);
+                }
+                channelToGuild.remove(channelId);
+            });
+        }
+    }
+
+    /**
+     * Voice channel the user is in, or 0 if unknown.
+     */
+    public static long get(long userId) {
+        return userToChannel.get(userId, 0);
+    }
+
+    /**
+     * Ids of the users in a voice channel; empty if it is unknown or empty.
+     */
+    public static long[] getMembers(long channelId) {
+        LongObjectMap<long[]> channels = guilds.get(channelToGuild.get(channelId, 0));
+        if (channels == null) return EMPTY;
+        long[] members = channels.get(channelId);
+        return members == null ? EMPTY : members.clone();
+    }
+
+    public static int getOccupancy(long channelId) {
+        LongObjectMap<long[]> channels = guilds.get(channelToGuild.get(channelId, 0));
+        if (channels == null) return 0;
+        long[] members = channels.get(channelId);
+        return members == null ? 0 : members.length;
+    }
+
+    public static long getGuild(long channelId) {
+        return channelToGuild.get(channelId, 0);
+    }
 
     public static void update(String userId, String channelId) {
-        if (channelId == null) userToChannel.remove(userId);
-        else userToChannel.put(userId, channelId);
+        update(Snowflake.parse(userId), Snowflake.parse(channelId));
     }
 
     public static String get(String userId) {
-        return userToChannel.get(userId);
+        long channelId = get(Snowflake.parse(userId));
+        return channelId == 0 ? null : Snowflake.format(channelId);
+    }
+
+    private static void addMember(LongObjectMap<long[]> channels, long channelId, long userId) {
+        long[] members = channels.get(channelId);
+        if (members == null) {
+            channels.put(channelId, new long[]{userId});
+            return;
+        }
+        for (long member : members) {
+            if (member == userId) return;
+        }
+        long[] grown = Arrays.copyOf(members, members.length + 1);
+        grown[members.length] = userId;
+        channels.put(channelId, grown);
     }
-}
 
+    private static void removeMember(LongObjectMap<long[]> channels, long channelId, long userId) {
+        long[] members = channels.get(channelId);
+        if (members == null) return;
+        for (int i = 0; i < members.length; i++) {
+            if (members[i] != userId) continue;
+            if (members.length == 1) {
+                channels.remove(channelId);
+            } else {
+                long[] shrunk = new long[members.length - 1];
+                System.arraycopy(members, 0, shrunk, 0, i);
+                System.arraycopy(members, i + 1, shrunk, i, members.length - i - 1);
+                channels.put(channelId, shrunk);
+            }
+            return;
+        }
+    }
+
+    private static String string(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+}
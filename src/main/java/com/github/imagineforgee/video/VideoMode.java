@@ -1,9 +1,9 @@
 package com.github.imagineforgee.video;
 
-import com.github.imagineforgee.client.VoiceClient;
+import com.github.imagineforgee.client.VoiceSession;
 
 public interface VideoMode {
-    default void setVoiceClient(VoiceClient client) {}
+    default void setVoiceSession(VoiceSession session) {}
     void start(String source); // e.g., video file or stream URL
     void stop();
     void initialize(); // e.g., encoder setup
@@ -1,16 +1,20 @@
 package com.github.imagineforgee.video;
 
-import com.github.imagineforgee.client.VoiceClient;
+import com.github.imagineforgee.client.VoiceSession;
 
 public class VideoPlayer implements VideoMode {
     private final VideoStreamer streamer;
-    private final VoiceClient voiceClient;
+    private VoiceSession session;
 
-    public VideoPlayer(VoiceClient voiceClient, VideoStreamer streamer) {
-        this.voiceClient = voiceClient;
+    public VideoPlayer(VideoStreamer streamer) {
         this.streamer = streamer;
     }
 
+    @Override
+    public void setVoiceSession(VoiceSession session) {
+        this.session = session;
+    }
+
     @Override
     public void start(String videoPath) {
         // encode video to RTP-ready Opus/H.264 stream using FFmpeg or similar
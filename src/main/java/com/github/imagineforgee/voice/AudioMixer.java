@@ -0,0 +1,257 @@
+package com.github.imagineforgee.voice;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mixes any number of PCM {@link AudioSource}s into one Opus stream.
+ * <p>
+ * A periodic task on the parallel scheduler pulls one frame from every source into its own
+ * reusable buffer, applies per-source gain and ducking, sums into a 32-bit accumulator,
+ * clamps, and encodes the mix once. Encoded frames are queued a few frames ahead in an
+ * {@link OpusFrameRing}, so the send tick only pops. Gains are Q14 fixed point and the inner
+ * loops are plain counted loops over primitive arrays, which C2 auto-vectorizes.
+ */
+public class AudioMixer implements OpusFrameSource {
+    public static final int FRAME_SAMPLES = OpusEncoder.FRAME_SIZE * OpusEncoder.CHANNELS;
+    public static final float DEFAULT_DUCK_LEVEL = 0.3f;
+
+    private static final int GAIN_SHIFT = 14;
+    private static final int UNITY = 1 << GAIN_SHIFT;
+    private static final float MAX_GAIN = 2.0f; // keeps sample * gain inside an int
+    private static final int LEAD_FRAMES = 3;
+    private static final long FILL_INTERVAL_MS = 10;
+    private static final byte[] SILENCE_FRAME = {(byte) 0xF8, (byte) 0xFF, (byte) 0xFE};
+
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private final OpusFrameRing ring = new OpusFrameRing(LEAD_FRAMES);
+    private final OpusEncoder encoder = new OpusEncoder();
+
+    // only touched by the fill task
+    private final int[] mix = new int[FRAME_SAMPLES];
+    private final short[] out = new short[FRAME_SAMPLES];
+    private final byte[] encoded = new byte[OpusUdpStreamer.MAX_OPUS_FRAME_SIZE];
+
+    private volatile int duckGain = toFixed(DEFAULT_DUCK_LEVEL);
+    private final AtomicLong mixedFrames = new AtomicLong();
+    private Disposable filler;
+
+    public Channel addSource(AudioSource source) {
+        return addSource(source, 1.0f, false);
+    }
+
+    /**
+     * @param ducksOthers while this source is producing audio, every source that doesn't duck is lowered to the duck level
+     */
+    public Channel addSource(AudioSource source, float gain, boolean ducksOthers) {
+        Channel channel = new Channel(source, gain, ducksOthers);
+        channels.add(channel);
+        return channel;
+    }
+
+    public void removeSource(Channel channel) {
+        if (channels.remove(channel)) {
+            channel.source.close();
+        }
+    }
+
+    /**
+     * Gain applied to non-ducking sources while a ducking source plays.
+     */
+    public void setDuckLevel(float level) {
+        duckGain = toFixed(level);
+    }
+
+    public synchronized void start() {
+        if (filler == null || filler.isDisposed()) {
+            filler = Schedulers.parallel().schedulePeriodically(this::fill, 0, FILL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (filler != null) {
+            filler.dispose();
+            filler = null;
+        }
+    }
+
+    /**
+     * Stops mixing, closes every source and releases the encoder.
+     */
+    public void close() {
+        stop();
+        for (Channel channel : channels) {
+            removeSource(channel);
+        }
+        encoder.close();
+    }
+
+    @Override
+    public ByteBuffer nextFrame() {
+        return ring.poll();
+    }
+
+    private void fill() {
+        try {
+            while (ring.size() < ring.capacity()) {
+                if (!mixFrame()) return;
+            }
+        } catch (Exception e) {
+            System.err.println("[Mixer] Failed to mix frame: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mixes and encodes one frame into the ring; false if no source had audio.
+     */
+    private boolean mixFrame() {
+        boolean any = false;
+        boolean ducking = false;
+        for (Channel channel : channels) {
+            if (channel.source.isFinished()) {
+                removeSource(channel);
+                continue;
+            }
+            channel.active = channel.source.provide(channel.pcm);
+            any |= channel.active;
+            ducking |= channel.active && channel.ducksOthers;
+        }
+        if (!any) return false;
+
+        Arrays.fill(mix, 0);
+        int duck = duckGain;
+        for (Channel channel : channels) {
+            if (!channel.active) continue;
+
+            int target = channel.gain;
+            if (ducking && !channel.ducksOthers) {
+                target = (target * duck) >> GAIN_SHIFT;
+            }
+            int from = channel.appliedGain < 0 ? target : channel.appliedGain;
+            if (from == target) {
+                mix(mix, channel.pcm, target);
+            } else {
+                mixRamp(mix, channel.pcm, from, target);
+            }
+            channel.appliedGain = target;
+        }
+        // digital silence is not encoded, but still takes its slot so the sources keep real time;
+        // the streamer turns the silence frame into DTX
+        if (clamp(mix, out) == 0) {
+            ring.offer(SILENCE_FRAME, 0, SILENCE_FRAME.length);
+            return true;
+        }
+
+        int length = encoder.encode(out, encoded);
+        if (length < 0) return false;
+        ring.offer(encoded, 0, length);
+        mixedFrames.incrementAndGet();
+        return true;
+    }
+
+    private static void mix(int[] acc, short[] pcm, int gain) {
+        if (gain == UNITY) {
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += pcm[i];
+            }
+        } else {
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += (pcm[i] * gain) >> GAIN_SHIFT;
+            }
+        }
+    }
+
+    // linear ramp across the frame so gain changes don't click; left and right share a gain
+    private static void mixRamp(int[] acc, short[] pcm, int from, int to) {
+        int frames = acc.length / 2;
+        long delta = to - from;
+        for (int f = 0; f < frames; f++) {
+            int gain = from + (int) (delta * f / frames);
+            int i = f * 2;
+            acc[i] += (pcm[i] * gain) >> GAIN_SHIFT;
+            acc[i + 1] += (pcm[i + 1] * gain) >> GAIN_SHIFT;
+        }
+    }
+
+    /**
+     * @return zero if and only if every clamped sample is zero
+     */
+    private static int clamp(int[] acc, short[] out) {
+        int bits = 0;
+        for (int i = 0; i < acc.length; i++) {
+            short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, acc[i]));
+            out[i] = sample;
+            bits |= sample;
+        }
+        return bits;
+    }
+
+    private static int toFixed(float gain) {
+        return Math.round(Math.max(0f, Math.min(MAX_GAIN, gain)) * UNITY);
+    }
+
+    public int getSourceCount() {
+        return channels.size();
+    }
+
+    /**
+     * Whether any source produced audio in the last mixed frame.
+     */
+    public boolean isActive() {
+        for (Channel channel : channels) {
+            if (channel.active) return true;
+        }
+        return false;
+    }
+
+    public long getMixedFrames() {
+        return mixedFrames.get();
+    }
+
+    public static final class Channel {
+        private final AudioSource source;
+        private final short[] pcm = new short[FRAME_SAMPLES];
+        private volatile int gain;
+        private volatile boolean ducksOthers;
+
+        // fill-task state
+        private volatile boolean active;
+        private int appliedGain = -1;
+
+        private Channel(AudioSource source, float gain, boolean ducksOthers) {
+            this.source = source;
+            this.gain = toFixed(gain);
+            this.ducksOthers = ducksOthers;
+        }
+
+        public AudioSource getSource() {
+            return source;
+        }
+
+        /**
+         * Linear gain, 0 to 2; changes are ramped over one frame.
+         */
+        public void setGain(float gain) {
+            this.gain = toFixed(gain);
+        }
+
+        public float getGain() {
+            return gain / (float) UNITY;
+        }
+
+        public void setDucksOthers(boolean ducksOthers) {
+            this.ducksOthers = ducksOthers;
+        }
+
+        public boolean ducksOthers() {
+            return ducksOthers;
+        }
+    }
+}
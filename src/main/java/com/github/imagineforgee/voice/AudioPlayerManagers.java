@@ -0,0 +1,94 @@
+package com.github.imagineforgee.voice;
+
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import dev.lavalink.youtube.YoutubeAudioSourceManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Process-wide LavaPlayer managers, one per output format, so track loading and its thread
+ * pools are shared by every guild instead of created per session.
+ */
+public final class AudioPlayerManagers {
+    private static volatile AudioPlayerManager opus;
+    private static volatile AudioPlayerManager pcm;
+
+    private AudioPlayerManagers() {
+    }
+
+    /**
+     * Manager whose players emit Discord-ready Opus frames, for passthrough playback.
+     */
+    public static AudioPlayerManager opus() {
+        AudioPlayerManager manager = opus;
+        if (manager == null) {
+            synchronized (AudioPlayerManagers.class) {
+                if (opus == null) opus = create(StandardAudioDataFormats.DISCORD_OPUS);
+                manager = opus;
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Manager whose players emit 48 kHz stereo big-endian PCM, for mixing.
+     */
+    public static AudioPlayerManager pcm() {
+        AudioPlayerManager manager = pcm;
+        if (manager == null) {
+            synchronized (AudioPlayerManagers.class) {
+                if (pcm == null) pcm = create(StandardAudioDataFormats.DISCORD_PCM_S16_BE);
+                manager = pcm;
+            }
+        }
+        return manager;
+    }
+
+    private static AudioPlayerManager create(AudioDataFormat format) {
+        AudioPlayerManager manager = new DefaultAudioPlayerManager();
+        manager.getConfiguration().setOutputFormat(format);
+        manager.registerSourceManager(new YoutubeAudioSourceManager(true));
+        return manager;
+    }
+
+    /**
+     * Resolves {@code url} to a single track (the first of a playlist) and hands it to {@code onLoaded}.
+     */
+    public static void load(AudioPlayerManager manager, String url, Consumer<AudioTrack> onLoaded, Runnable onFailed) {
+        manager.loadItem(url, new AudioLoadResultHandler() {
+            @Override
+            public void trackLoaded(AudioTrack track) {
+                System.out.println("[Voice] Track loaded successfully: " + track.getInfo().title);
+                onLoaded.accept(track);
+            }
+
+            @Override
+            public void playlistLoaded(AudioPlaylist playlist) {
+                if (!playlist.getTracks().isEmpty()) {
+                    onLoaded.accept(playlist.getTracks().get(0));
+                } else {
+                    onFailed.run();
+                }
+            }
+
+            @Override
+            public void noMatches() {
+                System.err.println("[Voice] No matches found for: " + url);
+                onFailed.run();
+            }
+
+            @Override
+            public void loadFailed(FriendlyException exception) {
+                System.err.println("[Voice] Failed to load track: " + exception.getMessage());
+                onFailed.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.imagineforgee.voice;
+
+/**
+ * Supplies 20 ms of 48 kHz stereo PCM to an {@link AudioMixer} per frame.
+ */
+public interface AudioSource {
+    /**
+     * Fills {@code pcm} ({@link AudioMixer#FRAME_SAMPLES} interleaved samples) with the next frame.
+     * Called on a scheduler thread, so it must not block.
+     *
+     * @return false if the source has nothing for this frame
+     */
+    boolean provide(short[] pcm);
+
+    /**
+     * Whether the source is done for good; finished sources are removed from the mixer.
+     */
+    default boolean isFinished() {
+        return false;
+    }
+
+    default void close() {
+    }
+}
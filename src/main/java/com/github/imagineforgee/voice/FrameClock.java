@@ -0,0 +1,144 @@
+package com.github.imagineforgee.voice;
+
+import reactor.core.Disposable;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared 20 ms clock that paces voice frame sending.
+ * <p>
+ * Ticks are scheduled against absolute {@link System#nanoTime()} deadlines, so wakeup jitter
+ * never accumulates. After a late wakeup the clock fires a single tick and skips every
+ * deadline that has already passed, counting those as dropped frames instead of bursting
+ * to catch up.
+ */
+public class FrameClock {
+    public static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final Runnable[] NO_LISTENERS = new Runnable[0];
+
+    private static FrameClock shared;
+
+    private final Thread thread;
+    private volatile Runnable[] listeners = NO_LISTENERS;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong lateTicks = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    public FrameClock(String name) {
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Returns the process-wide clock shared by every {@link OpusUdpStreamer}.
+     */
+    public static synchronized FrameClock shared() {
+        if (shared == null) {
+            shared = new FrameClock("voice-frame-clock");
+        }
+        return shared;
+    }
+
+    /**
+     * Runs the listener on the clock thread once per frame until the returned handle is disposed.
+     * Listeners share the thread, so they must not block. A listener that throws is unregistered.
+     */
+    public Disposable register(Runnable listener) {
+        synchronized (this) {
+            Runnable[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+            updated[updated.length - 1] = listener;
+            listeners = updated;
+        }
+        LockSupport.unpark(thread);
+        return () -> unregister(listener);
+    }
+
+    private synchronized void unregister(Runnable listener) {
+        Runnable[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Runnable[] updated = new Runnable[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        long deadline = System.nanoTime();
+        while (true) {
+            if (listeners.length == 0) {
+                LockSupport.park(this);
+                deadline = System.nanoTime();
+                continue;
+            }
+
+            waitUntil(deadline);
+
+            long late = System.nanoTime() - deadline;
+            if (late >= FRAME_NANOS) {
+                long missed = late / FRAME_NANOS;
+                droppedFrames.addAndGet(missed);
+                deadline += missed * FRAME_NANOS;
+            }
+            if (late > LATE_THRESHOLD_NANOS) {
+                lateTicks.incrementAndGet();
+            }
+            ticks.incrementAndGet();
+
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (Throwable t) {
+                    // a listener that throws would fail every tick, so drop it and keep the clock alive
+                    System.err.println("[FrameClock] Unregistering failed listener: " + t);
+                    t.printStackTrace();
+                    unregister(listener);
+                }
+            }
+
+            deadline += FRAME_NANOS;
+        }
+    }
+
+    /**
+     * Parks until shortly before the deadline, then spins the rest of the way for sub-millisecond precision.
+     */
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getTickCount() {
+        return ticks.get();
+    }
+
+    /**
+     * Ticks that fired more than 2 ms after their deadline.
+     */
+    public long getLateTicks() {
+        return lateTicks.get();
+    }
+
+    /**
+     * Frame deadlines skipped entirely because the clock woke up a full frame or more late.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+}
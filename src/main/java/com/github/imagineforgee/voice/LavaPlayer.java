@@ -1,39 +1,36 @@
 package com.github.imagineforgee.voice;
 
-import com.github.imagineforgee.client.VoiceClient;
-import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
-import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.github.imagineforgee.client.VoiceSession;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
-import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
-import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
-import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
-import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
-import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
-import dev.lavalink.youtube.YoutubeAudioSourceManager;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 
 public class LavaPlayer implements VoiceMode {
     private final AudioPlayerManager playerManager;
     private final com.sedmelluq.discord.lavaplayer.player.AudioPlayer lavaPlayer;
+    private final Duration prefetchDuration;
     private OpusUdpStreamer streamer;
-    private VoiceClient voiceClient;
+    private OpusFramePrefetcher prefetcher;
+    private VoiceSession session;
 
-    public LavaPlayer(OpusUdpStreamer streamer) {
-        this.playerManager = new DefaultAudioPlayerManager();
-        this.playerManager.getConfiguration().setOutputFormat(StandardAudioDataFormats.DISCORD_OPUS);
-        this.playerManager.registerSourceManager(new YoutubeAudioSourceManager(true));
+    public LavaPlayer() {
+        this(OpusFramePrefetcher.DEFAULT_BUFFER);
+    }
+
+    /**
+     * @param prefetchDuration how much audio to decode ahead of the sender, e.g. 100-500 ms
+     */
+    public LavaPlayer(Duration prefetchDuration) {
+        this.prefetchDuration = prefetchDuration;
+        this.playerManager = AudioPlayerManagers.opus();
         this.lavaPlayer = playerManager.createPlayer();
-        this.streamer = streamer;
     }
 
     @Override
-    public void setVoiceClient(VoiceClient client) {
-        this.voiceClient = client;
-        if (client.getUdpStreamer() != null) {
-            this.streamer = client.getUdpStreamer();
+    public void setVoiceSession(VoiceSession session) {
+        this.session = session;
+        if (session.getUdpStreamer() != null) {
+            this.streamer = session.getUdpStreamer();
         }
     }
 
@@ -42,59 +39,28 @@ public class LavaPlayer implements VoiceMode {
         System.out.println("[Voice] Loading track: " + url);
         stopStreaming();
 
-        playerManager.loadItem(url, new AudioLoadResultHandler() {
-            @Override
-            public void trackLoaded(AudioTrack track) {
-                System.out.println("[Voice] Track loaded successfully: " + track.getInfo().title);
-                lavaPlayer.playTrack(track);
-                startAudioStream();
-            }
-
-            @Override
-            public void playlistLoaded(AudioPlaylist playlist) {
-                if (!playlist.getTracks().isEmpty()) {
-                    AudioTrack firstTrack = playlist.getTracks().get(0);
-                    lavaPlayer.playTrack(firstTrack);
-                    startAudioStream();
-                }
-            }
-
-            @Override
-            public void noMatches() {
-                System.err.println("[Voice] No matches found for: " + url);
-            }
-
-            @Override
-            public void loadFailed(FriendlyException exception) {
-                System.err.println("[Voice] Failed to load track: " + exception.getMessage());
-            }
-        });
+        AudioPlayerManagers.load(playerManager, url, track -> {
+            lavaPlayer.playTrack(track);
+            startAudioStream();
+        }, () -> { });
     }
 
     private void startAudioStream() {
         System.out.println("[Voice] Starting audio stream");
 
-        OpusUdpStreamer udpStreamer = voiceClient.getUdpStreamer();
+        OpusUdpStreamer udpStreamer = session != null ? session.getUdpStreamer() : null;
         if (udpStreamer == null) {
-            System.err.println("[LavaPlayer] Cannot start audio stream: streamer not set in VoiceClient");
+            System.err.println("[LavaPlayer] Cannot start audio stream: voice session has no streamer");
             return;
         }
 
         stopStreaming();
 
-        Flux<byte[]> opusFrames = Flux.interval(Duration.ofMillis(20))
-                .onBackpressureDrop()
-                .takeWhile(tick -> voiceClient.getIsConnected().get())
-                .flatMap(tick -> {
-                    AudioFrame frame = lavaPlayer.provide();
-                    if (frame != null && frame.getData() != null && frame.getData().length > 0) {
-                        return Mono.just(frame.getData());
-                    }
-                    return Mono.empty();
-                });
-
-        voiceClient.setSpeaking(SpeakingFlag.MICROPHONE);
-        udpStreamer.start(opusFrames);
+        prefetcher = new OpusFramePrefetcher(lavaPlayer, prefetchDuration, lavaPlayer::stopTrack);
+        prefetcher.start();
+
+        streamer = udpStreamer;
+        udpStreamer.start(prefetcher);
     }
 
 
@@ -102,7 +68,6 @@ public class LavaPlayer implements VoiceMode {
     public void stop() {
         lavaPlayer.stopTrack();
         stopStreaming();
-        voiceClient.setSpeaking();
     }
 
     @Override
@@ -116,6 +81,10 @@ public class LavaPlayer implements VoiceMode {
     }
 
     private void stopStreaming() {
+        if (prefetcher != null) {
+            prefetcher.stop();
+            prefetcher = null;
+        }
         if (streamer != null) {
             streamer.stop();
             streamer = null;
@@ -125,7 +94,7 @@ public class LavaPlayer implements VoiceMode {
     @Override
     public void shutdown() {
         stop();
-        playerManager.shutdown();
+        lavaPlayer.destroy();
     }
 
     @Override
@@ -133,6 +102,16 @@ public class LavaPlayer implements VoiceMode {
         return lavaPlayer.getPlayingTrack() != null;
     }
 
+    public int getPrefetchDepth() {
+        OpusFramePrefetcher current = prefetcher;
+        return current != null ? current.getQueueDepth() : 0;
+    }
+
+    public long getUnderruns() {
+        OpusFramePrefetcher current = prefetcher;
+        return current != null ? current.getUnderruns() : 0;
+    }
+
     @Override
     public void setUdpStreamer(OpusUdpStreamer udpStreamer) {
         this.streamer = udpStreamer;
@@ -0,0 +1,78 @@
+package com.github.imagineforgee.voice;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link AudioSource} backed by a LavaPlayer player on the shared PCM manager.
+ * <p>
+ * Frames are provided into one reused buffer and converted from big-endian bytes in place,
+ * so a playing source allocates nothing per frame.
+ */
+public class LavaPlayerSource implements AudioSource {
+    private final AudioPlayer player = AudioPlayerManagers.pcm().createPlayer();
+    private final boolean oneShot;
+
+    private final byte[] frameBytes = new byte[AudioMixer.FRAME_SAMPLES * Short.BYTES];
+    private final ByteBuffer frameBuffer = ByteBuffer.wrap(frameBytes);
+    private final MutableAudioFrame frame = new MutableAudioFrame();
+
+    private volatile boolean started;
+    private volatile boolean failed;
+
+    /**
+     * @param oneShot finish (and leave the mixer) once the first loaded track ends, as for a sound effect
+     */
+    public LavaPlayerSource(boolean oneShot) {
+        this.oneShot = oneShot;
+        frame.setBuffer(frameBuffer);
+    }
+
+    public void play(String url) {
+        System.out.println("[Voice] Loading track: " + url);
+        AudioPlayerManagers.load(AudioPlayerManagers.pcm(), url, track -> {
+            player.playTrack(track);
+            started = true;
+        }, () -> failed = true);
+    }
+
+    public void stop() {
+        player.stopTrack();
+    }
+
+    public void setPaused(boolean paused) {
+        player.setPaused(paused);
+    }
+
+    public boolean isPlaying() {
+        return player.getPlayingTrack() != null;
+    }
+
+    @Override
+    public boolean provide(short[] pcm) {
+        frameBuffer.clear();
+        if (!player.provide(frame)) return false;
+
+        int samples = Math.min(frame.getDataLength() / Short.BYTES, pcm.length);
+        for (int i = 0; i < samples; i++) {
+            pcm[i] = (short) ((frameBytes[i * 2] << 8) | (frameBytes[i * 2 + 1] & 0xFF));
+        }
+        if (samples < pcm.length) {
+            Arrays.fill(pcm, samples, pcm.length, (short) 0);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return oneShot && (failed || (started && player.getPlayingTrack() == null));
+    }
+
+    @Override
+    public void close() {
+        player.destroy();
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.imagineforgee.voice;
+
+import com.github.imagineforgee.client.VoiceSession;
+
+/**
+ * Voice mode that plays music through an {@link AudioMixer}, so sound effects and other PCM
+ * sources can be layered over it. Effects duck the music while they play.
+ */
+public class MixingPlayer implements VoiceMode {
+    private final LavaPlayerSource music = new LavaPlayerSource(false);
+    private volatile float effectGain = 1.0f;
+    private VoiceSession session;
+    private OpusUdpStreamer streamer;
+    private AudioMixer mixer;
+
+    @Override
+    public void setVoiceSession(VoiceSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public void start(String url) {
+        if (startStream()) {
+            music.play(url);
+        }
+    }
+
+    /**
+     * Layers a one-shot sound over whatever is playing.
+     */
+    public void playEffect(String url) {
+        if (startStream()) {
+            LavaPlayerSource effect = new LavaPlayerSource(true);
+            mixer.addSource(effect, effectGain, true);
+            effect.play(url);
+        }
+    }
+
+    /**
+     * Adds any PCM source (TTS, generated audio, ...) to the mix.
+     */
+    public AudioMixer.Channel addSource(AudioSource source, float gain, boolean ducksOthers) {
+        if (!startStream()) return null;
+        return mixer.addSource(source, gain, ducksOthers);
+    }
+
+    public void setEffectGain(float gain) {
+        this.effectGain = gain;
+    }
+
+    public synchronized AudioMixer getMixer() {
+        return mixer;
+    }
+
+    private synchronized boolean startStream() {
+        OpusUdpStreamer udpStreamer = session != null ? session.getUdpStreamer() : null;
+        if (udpStreamer == null) {
+            System.err.println("[Mixer] Cannot start audio stream: voice session has no streamer");
+            return false;
+        }
+
+        if (mixer == null) {
+            mixer = new AudioMixer();
+            mixer.addSource(music);
+        }
+        if (streamer != udpStreamer) {
+            mixer.start();
+            udpStreamer.start(mixer);
+            streamer = udpStreamer;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        music.stop();
+        if (mixer != null) {
+            mixer.stop();
+        }
+        if (streamer != null) {
+            streamer.stop();
+            streamer = null;
+        }
+    }
+
+    @Override
+    public void initialize() {
+        System.out.println("[Voice] MixingPlayer initialized and ready to stream");
+    }
+
+    @Override
+    public void joinChannel(String guildId, String channelId) {
+        System.out.println("[Voice] MixingPlayer aware of joined channel: " + guildId + "/" + channelId);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        stop();
+        if (mixer != null) {
+            mixer.close(); // closes the music source too
+            mixer = null;
+        } else {
+            music.close();
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        AudioMixer current = mixer;
+        return music.isPlaying() || (current != null && current.isActive());
+    }
+
+    @Override
+    public void setUdpStreamer(OpusUdpStreamer udpStreamer) {
+        // picked up from the session on the next start
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.imagineforgee.voice;
+
+import com.sun.jna.ptr.PointerByReference;
+import tomp2p.opuswrapper.Opus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 48 kHz stereo Opus decoder over the bundled opus-java natives, with its native buffer allocated once.
+ */
+final class OpusDecoder implements AutoCloseable {
+    private final PointerByReference decoder;
+    private final ShortBuffer pcm = ByteBuffer.allocateDirect(OpusEncoder.FRAME_SIZE * OpusEncoder.CHANNELS * Short.BYTES)
+            .order(ByteOrder.nativeOrder()).asShortBuffer();
+    private boolean closed;
+
+    OpusDecoder() {
+        OpusEncoder.loadNatives();
+        IntBuffer error = IntBuffer.allocate(1);
+        decoder = Opus.INSTANCE.opus_decoder_create(OpusEncoder.SAMPLE_RATE, OpusEncoder.CHANNELS, error);
+        if (error.get(0) != Opus.OPUS_OK || decoder == null) {
+            throw new IllegalStateException("Failed to create Opus decoder: " + error.get(0));
+        }
+    }
+
+    /**
+     * Decodes one frame into {@code out} as interleaved stereo; a null {@code data} conceals a lost frame.
+     *
+     * @return samples per channel written, or -1 if decoding failed
+     */
+    synchronized int decode(byte[] data, int length, short[] out) {
+        if (closed) return -1;
+
+        pcm.clear();
+        int samples = Opus.INSTANCE.opus_decode(decoder, data, data != null ? length : 0, pcm, OpusEncoder.FRAME_SIZE, 0);
+        if (samples < 0) {
+            return -1;
+        }
+        pcm.get(out, 0, samples * OpusEncoder.CHANNELS);
+        return samples;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            Opus.INSTANCE.opus_decoder_destroy(decoder);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.imagineforgee.voice;
+
+import club.minnced.opus.util.OpusLibrary;
+import com.sun.jna.ptr.PointerByReference;
+import tomp2p.opuswrapper.Opus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 48 kHz stereo Opus encoder over the bundled opus-java natives, with its native buffers allocated once.
+ */
+final class OpusEncoder implements AutoCloseable {
+    static final int SAMPLE_RATE = 48_000;
+    static final int CHANNELS = 2;
+    static final int FRAME_SIZE = 960; // samples per channel in 20 ms
+
+    private final PointerByReference encoder;
+    private final ShortBuffer pcm = ByteBuffer.allocateDirect(FRAME_SIZE * CHANNELS * Short.BYTES)
+            .order(ByteOrder.nativeOrder()).asShortBuffer();
+    private final ByteBuffer encoded = ByteBuffer.allocateDirect(OpusUdpStreamer.MAX_OPUS_FRAME_SIZE);
+    private boolean closed;
+
+    OpusEncoder() {
+        loadNatives();
+        IntBuffer error = IntBuffer.allocate(1);
+        encoder = Opus.INSTANCE.opus_encoder_create(SAMPLE_RATE, CHANNELS, Opus.OPUS_APPLICATION_AUDIO, error);
+        if (error.get(0) != Opus.OPUS_OK || encoder == null) {
+            throw new IllegalStateException("Failed to create Opus encoder: " + error.get(0));
+        }
+    }
+
+    static synchronized void loadNatives() {
+        if (OpusLibrary.isInitialized()) return;
+        try {
+            OpusLibrary.loadFromJar();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load Opus natives", e);
+        }
+    }
+
+    /**
+     * Encodes one frame of interleaved PCM into {@code out}.
+     *
+     * @return the encoded length, or -1 if encoding failed
+     */
+    synchronized int encode(short[] samples, byte[] out) {
+        if (closed) return -1;
+
+        pcm.clear();
+        pcm.put(samples, 0, FRAME_SIZE * CHANNELS);
+        pcm.flip();
+        encoded.clear();
+
+        int length = Opus.INSTANCE.opus_encode(encoder, pcm, FRAME_SIZE, encoded, encoded.capacity());
+        if (length < 0) {
+            System.err.println("[Mixer] Opus encode failed: " + length);
+            return -1;
+        }
+        encoded.get(out, 0, length);
+        return length;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            Opus.INSTANCE.opus_encoder_destroy(encoder);
+        }
+    }
+}
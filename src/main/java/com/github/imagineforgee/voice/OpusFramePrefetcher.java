@@ -0,0 +1,147 @@
+package com.github.imagineforgee.voice;
+
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Jitter buffer between a LavaPlayer frame provider and the frame clock.
+ * <p>
+ * A periodic task on the parallel scheduler pulls frames from the provider into an
+ * {@link OpusFrameRing} ahead of time, so the send tick only pops from the ring. Playback
+ * starts once the ring is half full; after an underrun the ring refills to that level
+ * again before sending resumes.
+ * <p>
+ * This is the Opus passthrough path: the provider writes each frame straight into a ring slot
+ * through one reused {@link MutableAudioFrame}, and the streamer seals that slot into the packet,
+ * so frames are neither decoded, re-encoded nor copied on the way to the wire. A provider that
+ * switches to a format other than Opus ends the source: filling stops, the buffered frames are
+ * played out, and {@link #isFinished()} turns true so the streamer winds down.
+ */
+public class OpusFramePrefetcher implements OpusFrameSource {
+    public static final Duration DEFAULT_BUFFER = Duration.ofMillis(200);
+    private static final long FILL_INTERVAL_MS = 10;
+
+    private final AudioFrameProvider provider;
+    private final OpusFrameRing ring;
+    private final int startThreshold;
+    private final Runnable onExhausted;
+    private final AtomicLong underruns = new AtomicLong();
+    private final MutableAudioFrame frame = new MutableAudioFrame(); // fill-task only
+    private AudioDataFormat verifiedFormat;
+
+    private Disposable filler;
+    private volatile boolean exhausted;
+    private boolean primed; // consumer-side
+
+    public OpusFramePrefetcher(AudioFrameProvider provider, Duration bufferDuration) {
+        this(provider, bufferDuration, () -> { });
+    }
+
+    /**
+     * @param onExhausted run on the fill thread once the provider stops emitting Opus, e.g. to end the track
+     */
+    public OpusFramePrefetcher(AudioFrameProvider provider, Duration bufferDuration, Runnable onExhausted) {
+        int frames = (int) Math.max(2, bufferDuration.toNanos() / FrameClock.FRAME_NANOS);
+        this.provider = provider;
+        this.ring = new OpusFrameRing(frames);
+        this.startThreshold = Math.max(1, frames / 2);
+        this.onExhausted = onExhausted;
+    }
+
+    public synchronized void start() {
+        if (filler == null || filler.isDisposed()) {
+            filler = Schedulers.parallel().schedulePeriodically(this::fill, 0, FILL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (filler != null) {
+            filler.dispose();
+            filler = null;
+        }
+    }
+
+    private void fill() {
+        try {
+            ByteBuffer slot;
+            while ((slot = ring.claim()) != null) {
+                frame.setBuffer(slot);
+                if (!provider.provide(frame)) return;
+                if (!isOpus(frame.getFormat())) {
+                    exhausted = true;
+                    stop();
+                    onExhausted.run();
+                    return;
+                }
+
+                int length = frame.getDataLength();
+                if (length > 0) {
+                    ring.commit(length);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[Prefetch] Failed to provide frame: " + e.getMessage());
+        }
+    }
+
+    // frames are only sent as-is when the provider already emits Opus; PCM belongs in an AudioMixer
+    private boolean isOpus(AudioDataFormat format) {
+        if (format == verifiedFormat) return true;
+        if (format == null || !"OPUS".equalsIgnoreCase(format.codecName())) {
+            System.err.println("[Prefetch] Provider emits " + (format != null ? format.codecName() : "no format")
+                    + ", not Opus; ending the track");
+            return false;
+        }
+        verifiedFormat = format;
+        return true;
+    }
+
+    @Override
+    public ByteBuffer nextFrame() {
+        if (!primed) {
+            if (ring.size() < startThreshold && !exhausted) return null; // flush what is left once exhausted
+            primed = true;
+        }
+
+        ByteBuffer frame = ring.poll();
+        if (frame == null && !exhausted) {
+            underruns.incrementAndGet();
+            primed = false;
+        }
+        return frame;
+    }
+
+    /**
+     * Whether the provider stopped emitting Opus and every buffered frame has been handed out.
+     */
+    @Override
+    public boolean isFinished() {
+        return exhausted && ring.size() == 0;
+    }
+
+    /**
+     * Frames currently buffered ahead of the sender.
+     */
+    public int getQueueDepth() {
+        return ring.size();
+    }
+
+    public int getCapacity() {
+        return ring.capacity();
+    }
+
+    /**
+     * Times the sender found the buffer empty after playback had started.
+     */
+    public long getUnderruns() {
+        return underruns.get();
+    }
+}
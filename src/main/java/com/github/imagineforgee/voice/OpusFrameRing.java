@@ -0,0 +1,121 @@
+package com.github.imagineforgee.voice;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free single-producer/single-consumer ring of Opus frames.
+ * <p>
+ * Frames are copied into preallocated slots, and {@link #poll()} hands out a reusable view of
+ * the slot instead of a copy. A polled slot stays reserved until the next {@code poll()}, so
+ * the view is valid for exactly one tick.
+ */
+public class OpusFrameRing {
+    private final int capacity;
+    private final byte[][] slots;
+    private final int[] lengths;
+    private final ByteBuffer[] views;
+    private final ByteBuffer[] writeViews;
+
+    private final AtomicLong head = new AtomicLong(); // next slot to read, advanced by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, advanced by the producer
+    private boolean holding; // consumer-side: the slot at head is still lent out
+
+    public OpusFrameRing(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Ring capacity must be at least 2, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new byte[capacity][OpusUdpStreamer.MAX_OPUS_FRAME_SIZE];
+        this.lengths = new int[capacity];
+        this.views = new ByteBuffer[capacity];
+        this.writeViews = new ByteBuffer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            views[i] = ByteBuffer.wrap(slots[i]);
+            writeViews[i] = ByteBuffer.wrap(slots[i]);
+        }
+    }
+
+    /**
+     * Producer side. Copies the frame into the next free slot.
+     *
+     * @return false if the ring is full or the frame is larger than a slot
+     */
+    public boolean offer(byte[] frame, int offset, int length) {
+        long t = tail.get();
+        if (t - head.get() >= capacity || length > OpusUdpStreamer.MAX_OPUS_FRAME_SIZE) {
+            return false;
+        }
+
+        int index = (int) (t % capacity);
+        System.arraycopy(frame, offset, slots[index], 0, length);
+        lengths[index] = length;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Producer side. Returns a cleared, writable view of the next free slot so a frame can be
+     * written in place, or null if the ring is full. Nothing is published until {@link #commit}.
+     */
+    public ByteBuffer claim() {
+        long t = tail.get();
+        if (t - head.get() >= capacity) {
+            return null;
+        }
+
+        ByteBuffer view = writeViews[(int) (t % capacity)];
+        view.clear();
+        return view;
+    }
+
+    /**
+     * Producer side. Publishes the slot returned by the last {@link #claim()} with {@code length} bytes of frame.
+     */
+    public void commit(int length) {
+        long t = tail.get();
+        lengths[(int) (t % capacity)] = length;
+        tail.lazySet(t + 1);
+    }
+
+    /**
+     * Consumer side. Releases the previously polled slot and returns a view of the next frame,
+     * or null if the ring is empty.
+     */
+    public ByteBuffer poll() {
+        long h = head.get();
+        if (holding) {
+            head.lazySet(++h);
+            holding = false;
+        }
+        if (h == tail.get()) {
+            return null;
+        }
+
+        int index = (int) (h % capacity);
+        ByteBuffer view = views[index];
+        view.clear();
+        view.limit(lengths[index]);
+        holding = true;
+        return view;
+    }
+
+    /**
+     * Consumer side. Discards every queued frame; only call while the producer is stopped.
+     */
+    public void clear() {
+        head.set(tail.get());
+        holding = false;
+    }
+
+    /**
+     * Number of queued frames, including one still lent out by {@link #poll()}.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.imagineforgee.voice;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Supplies Opus frames to an {@link OpusUdpStreamer} on each {@link FrameClock} tick.
+ */
+@FunctionalInterface
+public interface OpusFrameSource {
+    /**
+     * Returns the next 20 ms Opus frame between the buffer's position and limit, or null if
+     * nothing is ready for this tick. Called on the clock thread, so it must not block.
+     */
+    ByteBuffer nextFrame();
+
+    /**
+     * Whether the source will never supply another frame; the streamer then ends the
+     * transmission as if {@link OpusUdpStreamer#stop()} had been called.
+     */
+    default boolean isFinished() {
+        return false;
+    }
+}
@@ -1,89 +1,243 @@
 package com.github.imagineforgee.voice;
 
-import com.goterl.lazysodium.LazySodiumJava;
+import com.github.imagineforgee.voice.crypto.VoiceCipher;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.time.Duration;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class OpusUdpStreamer {
-    private final LazySodiumJava sodium;
-    private final DatagramSocket udp;
-    private final InetAddress address;
-    private final int port;
+    static final int RTP_HEADER_SIZE = 12;
+    /** Largest single Opus frame allowed by RFC 6716. */
+    static final int MAX_OPUS_FRAME_SIZE = 1275;
+    /** Opus frames this short carry no audio: DTX frames and the canonical F8 FF FE silence frame. */
+    static final int MAX_SILENT_FRAME_SIZE = 3;
+    static final int SILENCE_TRAILER_FRAMES = 5;
+    private static final byte[] SILENCE_FRAME = {(byte) 0xF8, (byte) 0xFF, (byte) 0xFE};
+    private static final int SAMPLES_PER_FRAME = 960;
+
+    private final VoiceUdpConnection udp;
     private final int ssrc;
-    private final byte[] secretKey;
+    private final VoiceCipher cipher;
     private final AtomicBoolean isConnected;
+    private final FrameClock frameClock = FrameClock.shared();
     private Disposable stream;
+    private volatile Transmission transmission;
+    private volatile Consumer<Boolean> speakingListener = speaking -> { };
+
+    // RTP position of the stream, continued by every transmission so restarting playback never
+    // rewinds the sequence or timestamp; only advanced by the one active sender
+    private int sequence;
+    private int timestamp = (int) System.currentTimeMillis();
+
+    // Per-stream buffers, reused for every frame so the steady-state send path allocates nothing
+    // beyond the cipher; only the JCA AES-GCM fallback allocates there.
+    private final ByteBuffer packet = ByteBuffer.allocateDirect(RTP_HEADER_SIZE + MAX_OPUS_FRAME_SIZE + VoiceCipher.MAX_OVERHEAD);
+    private final byte[] rtpHeader = new byte[RTP_HEADER_SIZE];
+    private final byte[] plainText = new byte[MAX_OPUS_FRAME_SIZE];
 
-    public OpusUdpStreamer(LazySodiumJava sodium, DatagramSocket udp, InetAddress address, int port,
-                           int ssrc, byte[] secretKey, AtomicBoolean isConnected) {
-        this.sodium = sodium;
+    public OpusUdpStreamer(VoiceUdpConnection udp, int ssrc, VoiceCipher cipher, AtomicBoolean isConnected) {
         this.udp = udp;
-        this.address = address;
-        this.port = port;
         this.ssrc = ssrc;
-        this.secretKey = secretKey;
+        this.cipher = cipher;
         this.isConnected = isConnected;
+        initRtpHeader();
     }
 
-    public void start(Flux<byte[]> opusFrames) {
-        AtomicInteger seq = new AtomicInteger(0);
-        AtomicInteger ts = new AtomicInteger((int) (System.currentTimeMillis() & 0xFFFFFFFF));
+    /**
+     * Called on the clock thread whenever transmission starts or stops carrying audio, so the
+     * speaking flag is only sent on transitions.
+     */
+    public void setSpeakingListener(Consumer<Boolean> listener) {
+        this.speakingListener = listener != null ? listener : speaking -> { };
+    }
 
-        stop(); // cancel existing stream
+    public void start(Flux<byte[]> opusFrames) {
+        cancel(); // cancel existing stream
 
         this.stream = opusFrames
                 .takeWhile(frame -> isConnected.get())
                 .subscribeOn(Schedulers.boundedElastic()) // run async
                 .subscribe(frame -> {
-                    int sequence = seq.getAndUpdate(s -> (s + 1) & 0xFFFF);
-                    int timestamp = ts.getAndUpdate(t -> (t + 960) & 0xFFFFFFFF);
-                    sendFrame(sequence, timestamp, frame);
+                    sendFrame(nextSequence(), timestamp, frame, frame.length);
+                    timestamp += SAMPLES_PER_FRAME;
                 });
     }
 
+    /**
+     * Sends one frame from the source on every tick of the shared {@link FrameClock}, with
+     * discontinuous transmission: ticks where the source has nothing ready or only silence send
+     * nothing, after a trailer of {@value #SILENCE_TRAILER_FRAMES} silence frames ends each burst.
+     * The RTP timestamp keeps advancing through the gaps; the sequence only counts sent packets.
+     */
+    public synchronized void start(OpusFrameSource source) {
+        boolean speaking = cancel();
+        Transmission next = new Transmission(source, speaking);
+        transmission = next;
+        next.registration = frameClock.register(next);
+    }
 
-    private void sendFrame(int sequence, int timestamp, byte[] opusFrame) {
-        try {
-            byte[] rtp = createRtpHeader(sequence, timestamp);
-            byte[] nonce = new byte[24];
-            System.arraycopy(rtp, 0, nonce, 0, 12);
-            byte[] encrypted = new byte[opusFrame.length + 16];
+    /**
+     * Whether the current transmission is sending audio, as opposed to idle in DTX.
+     */
+    public boolean isSpeaking() {
+        Transmission current = transmission;
+        return current != null && current.speaking;
+    }
+
+    private final class Transmission implements Runnable {
+        private final OpusFrameSource source;
+        private volatile Disposable registration;
+        private volatile boolean draining;
 
-            if (!sodium.cryptoSecretBoxEasy(encrypted, opusFrame, opusFrame.length, nonce, secretKey)) {
-                System.err.println("[Streamer] Encryption failed.");
+        // clock-thread state
+        private volatile boolean speaking;
+        private int trailerLeft;
+
+        Transmission(OpusFrameSource source, boolean speaking) {
+            this.source = source;
+            this.speaking = speaking;
+            this.trailerLeft = speaking ? SILENCE_TRAILER_FRAMES : 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isConnected.get()) {
+                if (draining) finish();
                 return;
             }
 
-            byte[] packet = new byte[rtp.length + encrypted.length];
-            System.arraycopy(rtp, 0, packet, 0, 12);
-            System.arraycopy(encrypted, 0, packet, 12, encrypted.length);
+            ByteBuffer frame = draining ? null : source.nextFrame();
+            if (frame == null && !draining && source.isFinished()) {
+                draining = true;
+            }
+            if (frame != null && frame.remaining() > MAX_SILENT_FRAME_SIZE) {
+                if (!speaking) {
+                    speaking = true;
+                    speakingListener.accept(true);
+                }
+                trailerLeft = SILENCE_TRAILER_FRAMES;
+                sendFrame(nextSequence(), timestamp, frame);
+            } else if (trailerLeft > 0) {
+                trailerLeft--;
+                sendFrame(nextSequence(), timestamp, SILENCE_FRAME, SILENCE_FRAME.length);
+                if (trailerLeft == 0) {
+                    speaking = false;
+                    speakingListener.accept(false);
+                    if (draining) finish();
+                }
+            } else if (draining) {
+                finish();
+            }
+            timestamp += SAMPLES_PER_FRAME;
+        }
 
-            udp.send(new DatagramPacket(packet, packet.length, address, port));
+        /**
+         * @return whether the transmission was speaking when it ended
+         */
+        private boolean finish() {
+            Disposable current = registration;
+            if (current != null) {
+                current.dispose();
+            }
+            boolean wasSpeaking = speaking;
+            speaking = false;
+            synchronized (OpusUdpStreamer.this) {
+                if (transmission == this) transmission = null;
+            }
+            return wasSpeaking;
+        }
+    }
+
+    private int nextSequence() {
+        int current = sequence;
+        sequence = (current + 1) & 0xFFFF;
+        return current;
+    }
+
+    void sendFrame(int sequence, int timestamp, ByteBuffer opusFrame) {
+        int length = opusFrame.remaining();
+        if (opusFrame.hasArray() && opusFrame.arrayOffset() + opusFrame.position() == 0) {
+            sendFrame(sequence, timestamp, opusFrame.array(), length);
+        } else if (length <= MAX_OPUS_FRAME_SIZE) {
+            opusFrame.get(plainText, 0, length);
+            sendFrame(sequence, timestamp, plainText, length);
+        } else {
+            System.err.println("[Streamer] Dropping oversized frame: " + length + " bytes");
+        }
+    }
+
+    void sendFrame(int sequence, int timestamp, byte[] opusFrame, int length) {
+        if (length > MAX_OPUS_FRAME_SIZE) {
+            System.err.println("[Streamer] Dropping oversized frame: " + length + " bytes");
+            return;
+        }
+
+        try {
+            writeRtpHeader(sequence, timestamp);
+
+            packet.clear();
+            cipher.seal(rtpHeader, RTP_HEADER_SIZE, opusFrame, length, packet);
+            packet.flip();
+            udp.send(packet);
+        } catch (GeneralSecurityException e) {
+            System.err.println("[Streamer] Encryption failed: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("[Streamer] Packet send error: " + e.getMessage());
         }
     }
 
-    private byte[] createRtpHeader(int sequence, int timestamp) {
-        return new byte[]{
-                (byte) 0x80, (byte) 0x78,
-                (byte) (sequence >> 8), (byte) sequence,
-                (byte) (timestamp >> 24), (byte) (timestamp >> 16),
-                (byte) (timestamp >> 8), (byte) timestamp,
-                (byte) (ssrc >> 24), (byte) (ssrc >> 16),
-                (byte) (ssrc >> 8), (byte) ssrc
-        };
+    /**
+     * Writes the fields of the RTP header that never change for this stream (version, payload type, SSRC).
+     */
+    private void initRtpHeader() {
+        rtpHeader[0] = (byte) 0x80;
+        rtpHeader[1] = (byte) 0x78;
+        rtpHeader[8] = (byte) (ssrc >> 24);
+        rtpHeader[9] = (byte) (ssrc >> 16);
+        rtpHeader[10] = (byte) (ssrc >> 8);
+        rtpHeader[11] = (byte) ssrc;
+    }
+
+    /**
+     * Writes the per-frame sequence and timestamp fields of the RTP header in place.
+     */
+    void writeRtpHeader(int sequence, int timestamp) {
+        rtpHeader[2] = (byte) (sequence >> 8);
+        rtpHeader[3] = (byte) sequence;
+        rtpHeader[4] = (byte) (timestamp >> 24);
+        rtpHeader[5] = (byte) (timestamp >> 16);
+        rtpHeader[6] = (byte) (timestamp >> 8);
+        rtpHeader[7] = (byte) timestamp;
+    }
+
+    /**
+     * Stops sending after the silence trailer, then clears the speaking flag.
+     */
+    public synchronized void stop() {
+        disposeStream();
+        Transmission current = transmission;
+        if (current != null) {
+            current.draining = true;
+        }
+    }
+
+    /**
+     * Stops sending immediately, without a silence trailer.
+     *
+     * @return whether the cancelled transmission was speaking
+     */
+    public synchronized boolean cancel() {
+        disposeStream();
+        Transmission current = transmission;
+        return current != null && current.finish();
     }
 
-    public void stop() {
+    private void disposeStream() {
         if (stream != null && !stream.isDisposed()) {
             stream.dispose();
             stream = null;
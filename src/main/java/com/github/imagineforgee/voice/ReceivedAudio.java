@@ -0,0 +1,77 @@
+package com.github.imagineforgee.voice;
+
+/**
+ * One 20 ms frame received from a speaker, as Opus and, when requested, decoded PCM.
+ * <p>
+ * Instances and their buffers are owned by the {@link VoiceReceiver} and reused for the
+ * speaker's next frame, so they are only valid during the subscriber's {@code onNext}; copy
+ * what you need to keep.
+ */
+public final class ReceivedAudio {
+    private final int ssrc;
+    long userId;
+    int sequence;
+    int timestamp;
+    boolean lost;
+
+    final byte[] opus = new byte[OpusUdpStreamer.MAX_OPUS_FRAME_SIZE];
+    int opusLength;
+
+    final short[] pcm = new short[AudioMixer.FRAME_SAMPLES];
+    int pcmSamples;
+
+    ReceivedAudio(int ssrc) {
+        this.ssrc = ssrc;
+    }
+
+    public int getSsrc() {
+        return ssrc;
+    }
+
+    /**
+     * The speaker's user id, or 0 if their SSRC has not been announced yet.
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * RTP timestamp in 48 kHz samples; jumps across gaps where the speaker was silent.
+     */
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Whether the packet never arrived; there is no Opus data and the PCM, if any, is concealment.
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    public byte[] getOpus() {
+        return opus;
+    }
+
+    public int getOpusLength() {
+        return opusLength;
+    }
+
+    /**
+     * Interleaved stereo PCM; only filled for PCM subscribers.
+     */
+    public short[] getPcm() {
+        return pcm;
+    }
+
+    /**
+     * Samples per channel in {@link #getPcm()}, or 0 if it was not decoded.
+     */
+    public int getPcmSamples() {
+        return pcmSamples;
+    }
+}
@@ -1,10 +1,10 @@
 package com.github.imagineforgee.voice;
 
 
-import com.github.imagineforgee.client.VoiceClient;
+import com.github.imagineforgee.client.VoiceSession;
 
 public interface VoiceMode {
-    default void setVoiceClient(VoiceClient client) {}
+    default void setVoiceSession(VoiceSession session) {}
     void start(String url);
     void stop();
 
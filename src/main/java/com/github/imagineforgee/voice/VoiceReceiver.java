@@ -0,0 +1,474 @@
+package com.github.imagineforgee.voice;
+
+import com.github.imagineforgee.util.LongLongMap;
+import com.github.imagineforgee.util.LongObjectMap;
+import com.github.imagineforgee.voice.crypto.VoiceCipher;
+import com.github.imagineforgee.voice.crypto.VoiceCiphers;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receive side of a voice connection: decrypts incoming RTP, demultiplexes it by SSRC and
+ * reorders each speaker's packets through a small jitter buffer.
+ * <p>
+ * Packets are decrypted and buffered on the UDP I/O thread. A periodic task on the parallel
+ * scheduler releases them in sequence order, concealing a missing packet once a later one has
+ * waited {@value #MAX_DELAY_MS} ms, decodes to PCM only when someone subscribed to PCM, and
+ * emits to the per-user and all-user fluxes. Every speaker owns preallocated slots, a frame and
+ * a decoder that are reused for each packet, so steady-state receive allocates nothing beyond
+ * the cipher (see {@link VoiceCiphers#create}).
+ */
+public class VoiceReceiver {
+    private static final int PAYLOAD_TYPE_OPUS = 120;
+    private static final int RTP_HEADER_SIZE = 12;
+    private static final int JITTER_SLOTS = 16; // power of two; 320 ms of reordering
+    private static final int MAX_DELAY_MS = 60;
+    private static final long MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+    private static final long RESYNC_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int MAX_CONCEALED = 3;
+    private static final long DRAIN_INTERVAL_MS = 10;
+    private static final Speaker[] NO_SPEAKERS = new Speaker[0];
+
+    private final LongObjectMap<Speaker> speakers = new LongObjectMap<>(32);
+    private volatile Speaker[] speakerList = NO_SPEAKERS;
+    private final LongLongMap ssrcToUser = new LongLongMap(32);
+
+    private final Sinks.Many<ReceivedAudio> allOpus = newSink();
+    private final Sinks.Many<ReceivedAudio> allPcm = newSink();
+    private final LongObjectMap<UserSinks> userSinks = new LongObjectMap<>(32);
+
+    // I/O-thread scratch
+    private final byte[] packet = new byte[2048];
+    private final byte[] plain = new byte[2048];
+
+    private volatile VoiceCipher cipher;
+    private volatile boolean rtpSize;
+    private volatile int ownSsrc;
+    private Disposable drainer;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder concealed = new LongAdder();
+
+    /**
+     * Starts receiving with a cipher dedicated to this direction; the send cipher must not be shared.
+     */
+    public synchronized void start(VoiceCipher receiveCipher, int ownSsrc) {
+        this.ownSsrc = ownSsrc;
+        this.rtpSize = !VoiceCiphers.XSALSA20_POLY1305.equals(receiveCipher.getMode());
+        this.cipher = receiveCipher;
+        if (drainer == null || drainer.isDisposed()) {
+            drainer = Schedulers.parallel().schedulePeriodically(this::drain, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops receiving and releases every speaker; subscriptions stay open for the next connection.
+     */
+    public synchronized void stop() {
+        cipher = null;
+        if (drainer != null) {
+            drainer.dispose();
+            drainer = null;
+        }
+        for (Speaker speaker : speakerList) {
+            removeSpeaker(speaker);
+        }
+    }
+
+    /**
+     * Records which user an SSRC belongs to, from the voice gateway's SPEAKING (op 5) events.
+     */
+    public void mapSsrc(int ssrc, long userId) {
+        if (userId == 0) return;
+        ssrcToUser.put(key(ssrc), userId);
+        Speaker speaker = speakers.get(key(ssrc));
+        if (speaker != null) {
+            speaker.userId = userId;
+        }
+    }
+
+    /**
+     * Forgets a user who left the channel (CLIENT_DISCONNECT, op 13). Their per-user streams are
+     * dropped too unless someone is still subscribed to them.
+     */
+    public void removeUser(long userId) {
+        for (Speaker speaker : speakerList) {
+            if (speaker.userId == userId) {
+                ssrcToUser.remove(key(speaker.ssrc));
+                removeSpeaker(speaker);
+            }
+        }
+
+        UserSinks sinks = userSinks.get(userId);
+        if (sinks != null && !sinks.hasSubscribers()) {
+            userSinks.remove(userId);
+            // lost a race with a new subscriber: keep the sinks it subscribed to
+            if (sinks.hasSubscribers()) userSinks.putIfAbsent(userId, sinks);
+        }
+    }
+
+    public Flux<ReceivedAudio> receiveOpus() {
+        return allOpus.asFlux();
+    }
+
+    public Flux<ReceivedAudio> receiveOpus(long userId) {
+        return Flux.defer(() -> sinksFor(userId).opus.asFlux());
+    }
+
+    /**
+     * Frames with {@link ReceivedAudio#getPcm()} decoded, including concealment for lost packets.
+     */
+    public Flux<ReceivedAudio> receivePcm() {
+        return allPcm.asFlux();
+    }
+
+    public Flux<ReceivedAudio> receivePcm(long userId) {
+        return Flux.defer(() -> sinksFor(userId).pcm.asFlux());
+    }
+
+    // resolved at subscribe time, so a subscription made after removeUser gets live sinks
+    private UserSinks sinksFor(long userId) {
+        return userSinks.computeIfAbsent(userId, id -> new UserSinks());
+    }
+
+    /**
+     * Handles one datagram on the UDP I/O thread; the buffer is only valid during the call.
+     */
+    public void onPacket(ByteBuffer buffer) {
+        VoiceCipher current = cipher;
+        int length = buffer.remaining();
+        if (current == null || length < RTP_HEADER_SIZE || length > packet.length) return;
+        buffer.get(packet, 0, length);
+
+        // RTP version 2 with the Opus payload type; anything else (RTCP, keepalives) is ignored
+        if ((packet[0] & 0xC0) != 0x80 || (packet[1] & 0x7F) != PAYLOAD_TYPE_OPUS) return;
+        int ssrc = readInt(packet, 8);
+        if (ssrc == ownSsrc) return;
+        received.increment();
+
+        boolean extension = (packet[0] & 0x10) != 0;
+        int headerLength = RTP_HEADER_SIZE + (packet[0] & 0x0F) * 4;
+        // the rtpsize modes authenticate the extension header but encrypt its body
+        if (rtpSize && extension) headerLength += 4;
+        if (headerLength >= length) return;
+
+        int plainLength;
+        try {
+            plainLength = current.open(packet, length, headerLength, plain);
+        } catch (GeneralSecurityException e) {
+            rejected.increment();
+            return;
+        }
+
+        int offset = 0;
+        if (extension) {
+            offset = rtpSize
+                    ? readShort(packet, headerLength - 2) * 4
+                    : plainLength >= 4 ? 4 + readShort(plain, 2) * 4 : plainLength;
+        }
+        if ((packet[0] & 0x20) != 0 && plainLength > 0) {
+            plainLength -= plain[plainLength - 1] & 0xFF; // RTP padding
+        }
+        int opusLength = plainLength - offset;
+        if (opusLength <= 0 || opusLength > OpusUdpStreamer.MAX_OPUS_FRAME_SIZE) return;
+
+        Speaker speaker = speakerFor(ssrc);
+        if (!speaker.insert(readShort(packet, 2), readInt(packet, 4), plain, offset, opusLength, System.nanoTime())) {
+            late.increment();
+        }
+    }
+
+    private Speaker speakerFor(int ssrc) {
+        long key = key(ssrc);
+        Speaker speaker = speakers.get(key);
+        if (speaker != null) return speaker;
+
+        synchronized (this) {
+            speaker = speakers.get(key);
+            if (speaker == null) {
+                speaker = new Speaker(ssrc, ssrcToUser.get(key, 0));
+                speakers.put(key, speaker);
+                Speaker[] grown = Arrays.copyOf(speakerList, speakerList.length + 1);
+                grown[grown.length - 1] = speaker;
+                speakerList = grown;
+            }
+            return speaker;
+        }
+    }
+
+    private synchronized void removeSpeaker(Speaker speaker) {
+        if (speakers.remove(key(speaker.ssrc)) == null) return;
+
+        Speaker[] current = speakerList;
+        Speaker[] shrunk = new Speaker[current.length - 1];
+        int n = 0;
+        for (Speaker s : current) {
+            if (s != speaker && n < shrunk.length) shrunk[n++] = s;
+        }
+        speakerList = shrunk;
+        speaker.close();
+    }
+
+    private void drain() {
+        try {
+            long now = System.nanoTime();
+            for (Speaker speaker : speakerList) {
+                if (speaker.isIdle(now)) {
+                    removeSpeaker(speaker);
+                    continue;
+                }
+                while (speaker.poll(now)) {
+                    emit(speaker);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[Receiver] Failed to drain: " + e.getMessage());
+        }
+    }
+
+    private void emit(Speaker speaker) {
+        ReceivedAudio frame = speaker.frame;
+        long userId = speaker.userId;
+        frame.userId = userId;
+
+        UserSinks sinks = userId != 0 ? userSinks.get(userId) : null;
+        boolean wantOpus = allOpus.currentSubscriberCount() > 0 || (sinks != null && sinks.opus.currentSubscriberCount() > 0);
+        boolean wantPcm = allPcm.currentSubscriberCount() > 0 || (sinks != null && sinks.pcm.currentSubscriberCount() > 0);
+
+        frame.pcmSamples = 0;
+        OpusDecoder decoder = wantPcm ? speaker.decoder() : null;
+        if (decoder != null) {
+            int samples = decoder.decode(frame.lost ? null : frame.opus, frame.opusLength, frame.pcm);
+            frame.pcmSamples = Math.max(samples, 0);
+        }
+        if (frame.lost) {
+            concealed.increment();
+        }
+
+        if (wantOpus) {
+            allOpus.tryEmitNext(frame);
+            if (sinks != null) sinks.opus.tryEmitNext(frame);
+        }
+        if (wantPcm) {
+            allPcm.tryEmitNext(frame);
+            if (sinks != null) sinks.pcm.tryEmitNext(frame);
+        }
+    }
+
+    public int getSpeakerCount() {
+        return speakerList.length;
+    }
+
+    public long getReceivedPackets() {
+        return received.sum();
+    }
+
+    /**
+     * Packets that failed authentication or decryption.
+     */
+    public long getRejectedPackets() {
+        return rejected.sum();
+    }
+
+    /**
+     * Packets that arrived after their slot had already been played out, or were duplicates.
+     */
+    public long getLatePackets() {
+        return late.sum();
+    }
+
+    public long getConcealedFrames() {
+        return concealed.sum();
+    }
+
+    // SSRC 0 is valid, and key 0 is reserved by the maps
+    private static long key(int ssrc) {
+        return (ssrc & 0xFFFFFFFFL) | (1L << 32);
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    // delivered synchronously, so a frame can be reused as soon as tryEmitNext returns
+    private static Sinks.Many<ReceivedAudio> newSink() {
+        return Sinks.many().multicast().directBestEffort();
+    }
+
+    private static final class UserSinks {
+        final Sinks.Many<ReceivedAudio> opus = newSink();
+        final Sinks.Many<ReceivedAudio> pcm = newSink();
+
+        boolean hasSubscribers() {
+            return opus.currentSubscriberCount() > 0 || pcm.currentSubscriberCount() > 0;
+        }
+    }
+
+    /**
+     * One SSRC's jitter buffer. Inserted into by the I/O thread, polled by the drain task.
+     */
+    private static final class Speaker {
+        private static final int MASK = JITTER_SLOTS - 1;
+
+        final int ssrc;
+        volatile long userId;
+        final ReceivedAudio frame;
+        private OpusDecoder decoder;
+
+        private final byte[][] slots = new byte[JITTER_SLOTS][OpusUdpStreamer.MAX_OPUS_FRAME_SIZE];
+        private final int[] lengths = new int[JITTER_SLOTS];
+        private final int[] sequences = new int[JITTER_SLOTS];
+        private final int[] timestamps = new int[JITTER_SLOTS];
+        private final long[] arrivals = new long[JITTER_SLOTS];
+        private final boolean[] filled = new boolean[JITTER_SLOTS];
+        private int count;
+        private int nextSequence;
+        private int lastTimestamp;
+        private long lastArrival;
+        private int concealedRun;
+        private boolean started;
+        private boolean closed;
+
+        Speaker(int ssrc, long userId) {
+            this.ssrc = ssrc;
+            this.userId = userId;
+            this.frame = new ReceivedAudio(ssrc);
+        }
+
+        /**
+         * @return false if the packet was late or a duplicate
+         */
+        synchronized boolean insert(int sequence, int timestamp, byte[] data, int offset, int length, long now) {
+            if (closed) return true;
+
+            // first packet, or the sender restarted after a pause: follow its numbering
+            if (!started || (count == 0 && now - lastArrival > RESYNC_NANOS)) {
+                started = true;
+                nextSequence = sequence;
+            }
+            lastArrival = now;
+
+            int ahead = (short) (sequence - nextSequence);
+            if (ahead < 0) return false;
+            if (ahead >= JITTER_SLOTS) {
+                // too far ahead to wait for the gap: drop the backlog and restart here
+                Arrays.fill(filled, false);
+                count = 0;
+                nextSequence = sequence;
+            }
+
+            int index = sequence & MASK;
+            if (filled[index]) return false;
+
+            System.arraycopy(data, offset, slots[index], 0, length);
+            lengths[index] = length;
+            sequences[index] = sequence;
+            timestamps[index] = timestamp;
+            arrivals[index] = now;
+            filled[index] = true;
+            count++;
+            return true;
+        }
+
+        /**
+         * Moves the next frame in sequence into {@link #frame}: the expected packet if it is here,
+         * or a lost-frame marker once a later packet has waited long enough.
+         */
+        synchronized boolean poll(long now) {
+            while (count > 0) {
+                int index = nextSequence & MASK;
+                if (filled[index] && sequences[index] == nextSequence) {
+                    System.arraycopy(slots[index], 0, frame.opus, 0, lengths[index]);
+                    frame.opusLength = lengths[index];
+                    frame.sequence = nextSequence;
+                    frame.timestamp = timestamps[index];
+                    frame.lost = false;
+                    filled[index] = false;
+                    count--;
+                    lastTimestamp = timestamps[index];
+                    nextSequence = (nextSequence + 1) & 0xFFFF;
+                    concealedRun = 0;
+                    return true;
+                }
+
+                if (now - oldestArrival() < MAX_DELAY_NANOS) return false;
+
+                if (concealedRun < MAX_CONCEALED) {
+                    concealedRun++;
+                    lastTimestamp += OpusEncoder.FRAME_SIZE;
+                    frame.opusLength = 0;
+                    frame.sequence = nextSequence;
+                    frame.timestamp = lastTimestamp;
+                    frame.lost = true;
+                    nextSequence = (nextSequence + 1) & 0xFFFF;
+                    return true;
+                }
+                // a long gap: stop concealing and skip to the earliest buffered packet
+                nextSequence = earliestSequence();
+                concealedRun = 0;
+            }
+            return false;
+        }
+
+        private long oldestArrival() {
+            long oldest = Long.MAX_VALUE;
+            for (int i = 0; i < JITTER_SLOTS; i++) {
+                if (filled[i] && arrivals[i] < oldest) oldest = arrivals[i];
+            }
+            return oldest;
+        }
+
+        private int earliestSequence() {
+            int best = nextSequence;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < JITTER_SLOTS; i++) {
+                if (!filled[i]) continue;
+                int distance = (short) (sequences[i] - nextSequence);
+                if (distance >= 0 && distance < bestDistance) {
+                    bestDistance = distance;
+                    best = sequences[i];
+                }
+            }
+            return best;
+        }
+
+        synchronized boolean isIdle(long now) {
+            return count == 0 && now - lastArrival > IDLE_NANOS;
+        }
+
+        /**
+         * Created on first PCM demand; null once the speaker is closed.
+         */
+        synchronized OpusDecoder decoder() {
+            if (decoder == null && !closed) {
+                decoder = new OpusDecoder();
+            }
+            return closed ? null : decoder;
+        }
+
+        synchronized void close() {
+            closed = true;
+            count = 0;
+            Arrays.fill(filled, false);
+            if (decoder != null) {
+                decoder.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.imagineforgee.voice;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A single voice server's UDP channel, driven by a {@link VoiceUdpTransport}.
+ */
+public class VoiceUdpConnection implements Closeable {
+    private static final int DISCOVERY_PACKET_SIZE = 74;
+    private static final short DISCOVERY_REQUEST = 0x0001;
+    private static final short DISCOVERY_RESPONSE = 0x0002;
+    private static final int DISCOVERY_ADDRESS_OFFSET = 8;
+    private static final int DISCOVERY_PORT_OFFSET = 72;
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress server;
+    private final AtomicLong droppedPackets = new AtomicLong();
+
+    private final AtomicReference<Sinks.One<InetSocketAddress>> pendingDiscovery = new AtomicReference<>();
+    private volatile Consumer<ByteBuffer> receiveHandler;
+
+    VoiceUdpConnection(DatagramChannel channel, InetSocketAddress server) {
+        this.channel = channel;
+        this.server = server;
+    }
+
+    /**
+     * Sends an IP discovery request and completes with our external address as seen by the voice server.
+     * <p>
+     * Until it completes, errors or is cancelled, replies matching the discovery format are
+     * consumed here instead of reaching the receive handler.
+     */
+    public Mono<InetSocketAddress> discover(int ssrc) {
+        return Mono.defer(() -> {
+            Sinks.One<InetSocketAddress> result = Sinks.one();
+            pendingDiscovery.set(result);
+
+            ByteBuffer request = ByteBuffer.allocate(DISCOVERY_PACKET_SIZE);
+            request.putShort(0, DISCOVERY_REQUEST);
+            request.putShort(2, (short) (DISCOVERY_PACKET_SIZE - 4));
+            request.putInt(4, ssrc);
+            try {
+                channel.write(request);
+            } catch (IOException e) {
+                pendingDiscovery.compareAndSet(result, null);
+                return Mono.error(e);
+            }
+            // a timeout or cancellation downstream must not leave the next RTP packet to be taken as the reply
+            return result.asMono().doFinally(signal -> pendingDiscovery.compareAndSet(result, null));
+        });
+    }
+
+    /**
+     * Writes one datagram from the buffer's position to its limit.
+     *
+     * @return false if the socket buffer was full and the packet was dropped
+     */
+    public boolean send(ByteBuffer packet) throws IOException {
+        if (channel.write(packet) == 0) {
+            droppedPackets.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the handler for incoming packets. It runs on the transport's I/O thread and
+     * the buffer is only valid for the duration of the call.
+     */
+    public void setReceiveHandler(Consumer<ByteBuffer> handler) {
+        this.receiveHandler = handler;
+    }
+
+    void readAvailable(ByteBuffer buffer) {
+        try {
+            while (true) {
+                buffer.clear();
+                if (channel.read(buffer) <= 0) return;
+                buffer.flip();
+                onPacket(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("[VoiceUdp] Receive error from " + server + ": " + e.getMessage());
+        }
+    }
+
+    private void onPacket(ByteBuffer packet) {
+        Sinks.One<InetSocketAddress> discovery = pendingDiscovery.get();
+        if (discovery != null && isDiscoveryResponse(packet)) {
+            if (pendingDiscovery.compareAndSet(discovery, null)) {
+                completeDiscovery(discovery, packet);
+            }
+            return;
+        }
+
+        Consumer<ByteBuffer> handler = receiveHandler;
+        if (handler != null) {
+            handler.accept(packet);
+        }
+    }
+
+    // RTP packets start with version 2 (0x80 or above), so they never carry the 0x0002 type
+    private static boolean isDiscoveryResponse(ByteBuffer packet) {
+        return packet.remaining() >= DISCOVERY_PACKET_SIZE
+                && packet.getShort(packet.position()) == DISCOVERY_RESPONSE;
+    }
+
+    private void completeDiscovery(Sinks.One<InetSocketAddress> discovery, ByteBuffer response) {
+        int base = response.position();
+        StringBuilder ipBuilder = new StringBuilder();
+        for (int i = base + DISCOVERY_ADDRESS_OFFSET; i < base + DISCOVERY_PORT_OFFSET && response.get(i) != 0; i++) {
+            ipBuilder.append((char) (response.get(i) & 0xFF));
+        }
+
+        String discoveredIp = ipBuilder.toString();
+        int discoveredPort = response.getShort(base + DISCOVERY_PORT_OFFSET) & 0xFFFF;
+
+        if (discoveredIp.isEmpty()) {
+            discovery.tryEmitError(new IOException("Empty IP discovered"));
+        } else {
+            discovery.tryEmitValue(InetSocketAddress.createUnresolved(discoveredIp, discoveredPort));
+        }
+    }
+
+    public InetSocketAddress getServer() {
+        return server;
+    }
+
+    public long getDroppedPackets() {
+        return droppedPackets.get();
+    }
+
+    public boolean isClosed() {
+        return !channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[VoiceUdp] Error closing channel: " + e.getMessage());
+        }
+    }
+}
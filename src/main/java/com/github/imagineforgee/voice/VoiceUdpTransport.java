@@ -0,0 +1,122 @@
+package com.github.imagineforgee.voice;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking UDP transport shared by voice connections.
+ * <p>
+ * One I/O thread owns a {@link Selector} and services IP discovery and incoming packets
+ * for every {@link VoiceUdpConnection} opened from this transport. Outgoing packets are
+ * written straight to the non-blocking channel by the caller, so a full socket buffer
+ * drops the packet instead of stalling the sender.
+ */
+public class VoiceUdpTransport implements Closeable {
+    private static final int RECEIVE_BUFFER_SIZE = 2048;
+    private static VoiceUdpTransport shared;
+
+    private final Selector selector;
+    private final Thread ioThread;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(RECEIVE_BUFFER_SIZE);
+    private final Consumer<SelectionKey> keyHandler = this::handleKey;
+    private volatile boolean running = true;
+
+    public VoiceUdpTransport() throws IOException {
+        this.selector = Selector.open();
+        this.ioThread = new Thread(this::run, "voice-udp-io");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Returns the process-wide transport, starting its I/O thread on first use.
+     */
+    public static synchronized VoiceUdpTransport shared() {
+        if (shared == null) {
+            try {
+                shared = new VoiceUdpTransport();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open voice UDP selector", e);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Opens a non-blocking channel connected to the given voice server and registers it for reads.
+     */
+    public VoiceUdpConnection open(InetSocketAddress server) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.connect(server);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        VoiceUdpConnection connection = new VoiceUdpConnection(channel, server);
+        execute(() -> {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (ClosedChannelException e) {
+                System.err.println("[VoiceUdp] Channel closed before registration: " + server);
+            }
+        });
+        return connection;
+    }
+
+    private void execute(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select(keyHandler);
+
+                Runnable task;
+                while ((task = pendingTasks.poll()) != null) {
+                    task.run();
+                }
+            } catch (IOException e) {
+                System.err.println("[VoiceUdp] Selector error: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("[VoiceUdp] Unexpected I/O thread error: " + e.getMessage());
+            }
+        }
+
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("[VoiceUdp] Error closing selector: " + e.getMessage());
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (key.isValid() && key.isReadable()) {
+            ((VoiceUdpConnection) key.attachment()).readAvailable(receiveBuffer);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
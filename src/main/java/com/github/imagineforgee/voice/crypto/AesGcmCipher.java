@@ -0,0 +1,81 @@
+package com.github.imagineforgee.voice.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * {@code aead_aes256_gcm_rtpsize} on the JDK's AES/GCM provider, which HotSpot accelerates
+ * with AES-NI and carry-less multiply intrinsics.
+ * <p>
+ * GCM cannot be re-keyed with a new nonce without {@code Cipher.init} and a fresh
+ * {@link GCMParameterSpec}, so each packet allocates about 1 KB. {@link VoiceCiphers} only uses
+ * this where libsodium's AES-GCM is unavailable.
+ * <p>
+ * The RTP header is authenticated but not encrypted. The 12-byte nonce is a big-endian
+ * counter followed by zeros, and the counter is appended to the packet as a 4-byte suffix.
+ */
+class AesGcmCipher implements VoiceCipher {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int TAG_BITS = 128;
+    private static final int NONCE_SIZE = 12;
+
+    private final Cipher cipher;
+    private final SecretKeySpec key;
+    private final byte[] nonce = new byte[NONCE_SIZE];
+    private final byte[] openNonce = new byte[NONCE_SIZE];
+    private final byte[] cipherText = new byte[2048];
+    private int counter;
+
+    AesGcmCipher(byte[] secretKey) throws GeneralSecurityException {
+        this.cipher = Cipher.getInstance(TRANSFORMATION);
+        this.key = new SecretKeySpec(secretKey, "AES");
+    }
+
+    static boolean isAvailable() {
+        try {
+            Cipher.getInstance(TRANSFORMATION);
+            return Cipher.getMaxAllowedKeyLength("AES") >= 256;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getMode() {
+        return VoiceCiphers.AES256_GCM_RTPSIZE;
+    }
+
+    @Override
+    public void seal(byte[] header, int headerLength, byte[] payload, int payloadLength, ByteBuffer packet)
+            throws GeneralSecurityException {
+        int suffix = counter++;
+        nonce[0] = (byte) (suffix >> 24);
+        nonce[1] = (byte) (suffix >> 16);
+        nonce[2] = (byte) (suffix >> 8);
+        nonce[3] = (byte) suffix;
+
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(header, 0, headerLength);
+        int length = cipher.doFinal(payload, 0, payloadLength, cipherText, 0);
+
+        packet.put(header, 0, headerLength);
+        packet.put(cipherText, 0, length);
+        packet.put(nonce, 0, 4);
+    }
+
+    @Override
+    public int open(byte[] packet, int length, int headerLength, byte[] out) throws GeneralSecurityException {
+        int cipherLength = length - headerLength - 4;
+        if (cipherLength < TAG_BITS / 8) {
+            throw new GeneralSecurityException("Truncated packet: " + length + " bytes");
+        }
+        System.arraycopy(packet, length - 4, openNonce, 0, 4);
+
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, openNonce));
+        cipher.updateAAD(packet, 0, headerLength);
+        return cipher.doFinal(packet, headerLength, cipherLength, out, 0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.imagineforgee.voice.crypto;
+
+import com.goterl.lazysodium.LazySodiumJava;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * The rtpsize AEAD modes on libsodium: {@code aead_xchacha20_poly1305_rtpsize}, and
+ * {@code aead_aes256_gcm_rtpsize} on CPUs with AES-NI. Nothing is allocated per packet.
+ * <p>
+ * Same packet layout as {@link AesGcmCipher}: authenticated header, encrypted payload with
+ * a 16-byte tag, and a 4-byte big-endian nonce counter suffix.
+ */
+class SodiumAeadCipher implements VoiceCipher {
+    private final LazySodiumJava sodium;
+    private final String mode;
+    private final byte[] secretKey;
+    private final byte[] nonce;
+    private final byte[] cipherText = new byte[2048];
+    private final long[] cipherTextLength = new long[1];
+    private final byte[] openNonce;
+    private final byte[] openHeader = new byte[64];
+    private final byte[] openCipherText = new byte[2048];
+    private final long[] plainTextLength = new long[1];
+    private int counter;
+
+    SodiumAeadCipher(LazySodiumJava sodium, String mode, byte[] secretKey) {
+        this.sodium = sodium;
+        this.mode = mode;
+        this.secretKey = secretKey;
+        this.nonce = new byte[VoiceCiphers.XCHACHA20_POLY1305_RTPSIZE.equals(mode) ? 24 : 12];
+        this.openNonce = new byte[nonce.length];
+    }
+
+    @Override
+    public String getMode() {
+        return mode;
+    }
+
+    @Override
+    public void seal(byte[] header, int headerLength, byte[] payload, int payloadLength, ByteBuffer packet)
+            throws GeneralSecurityException {
+        int suffix = counter++;
+        nonce[0] = (byte) (suffix >> 24);
+        nonce[1] = (byte) (suffix >> 16);
+        nonce[2] = (byte) (suffix >> 8);
+        nonce[3] = (byte) suffix;
+
+        boolean sealed = nonce.length == 24
+                ? sodium.cryptoAeadXChaCha20Poly1305IetfEncrypt(cipherText, cipherTextLength, payload, payloadLength,
+                        header, headerLength, null, nonce, secretKey)
+                : sodium.cryptoAeadAES256GCMEncrypt(cipherText, cipherTextLength, payload, payloadLength,
+                        header, headerLength, null, nonce, secretKey);
+        if (!sealed) {
+            throw new GeneralSecurityException("libsodium failed to encrypt with " + mode);
+        }
+
+        packet.put(header, 0, headerLength);
+        packet.put(cipherText, 0, (int) cipherTextLength[0]);
+        packet.put(nonce, 0, 4);
+    }
+
+    @Override
+    public int open(byte[] packet, int length, int headerLength, byte[] out) throws GeneralSecurityException {
+        int cipherLength = length - headerLength - 4;
+        if (cipherLength < 16 || headerLength > openHeader.length) {
+            throw new GeneralSecurityException("Malformed packet: " + length + " bytes, header " + headerLength);
+        }
+        // libsodium takes whole arrays, so header and ciphertext are staged at offset 0
+        System.arraycopy(packet, length - 4, openNonce, 0, 4);
+        System.arraycopy(packet, 0, openHeader, 0, headerLength);
+        System.arraycopy(packet, headerLength, openCipherText, 0, cipherLength);
+
+        boolean opened = openNonce.length == 24
+                ? sodium.cryptoAeadXChaCha20Poly1305IetfDecrypt(out, plainTextLength, null, openCipherText, cipherLength,
+                        openHeader, headerLength, openNonce, secretKey)
+                : sodium.cryptoAeadAES256GCMDecrypt(out, plainTextLength, null, openCipherText, cipherLength,
+                        openHeader, headerLength, openNonce, secretKey);
+        if (!opened) {
+            throw new GeneralSecurityException("libsodium failed to decrypt with " + mode);
+        }
+        return (int) plainTextLength[0];
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.imagineforgee.voice.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypts outgoing and decrypts incoming RTP packets for one negotiated voice encryption mode.
+ * <p>
+ * Instances keep per-connection nonce state and reuse their scratch buffers, so they are
+ * not thread-safe; each stream, and each direction, uses its own cipher.
+ */
+public interface VoiceCipher {
+    /**
+     * Maximum number of bytes a sealed packet grows by beyond header and payload (tag plus nonce suffix).
+     */
+    int MAX_OVERHEAD = 16 + 4;
+
+    /**
+     * The mode name sent in SELECT_PROTOCOL, e.g. {@code aead_aes256_gcm_rtpsize}.
+     */
+    String getMode();
+
+    /**
+     * Writes the complete packet (header, encrypted payload and any nonce suffix) into
+     * {@code packet} starting at its position.
+     */
+    void seal(byte[] header, int headerLength, byte[] payload, int payloadLength, ByteBuffer packet)
+            throws GeneralSecurityException;
+
+    /**
+     * Authenticates and decrypts a received packet of {@code length} bytes whose first
+     * {@code headerLength} bytes are the unencrypted header, writing the plaintext to {@code out}.
+     *
+     * @return the plaintext length
+     * @throws GeneralSecurityException if the packet is truncated or fails authentication
+     */
+    int open(byte[] packet, int length, int headerLength, byte[] out) throws GeneralSecurityException;
+}
@@ -0,0 +1,55 @@
+package com.github.imagineforgee.voice.crypto;
+
+import com.goterl.lazysodium.LazySodiumJava;
+
+import java.security.GeneralSecurityException;
+import java.util.Collection;
+
+/**
+ * Negotiates voice encryption modes and creates {@link VoiceCipher}s for them.
+ */
+public final class VoiceCiphers {
+    public static final String AES256_GCM_RTPSIZE = "aead_aes256_gcm_rtpsize";
+    public static final String XCHACHA20_POLY1305_RTPSIZE = "aead_xchacha20_poly1305_rtpsize";
+    public static final String XSALSA20_POLY1305 = "xsalsa20_poly1305";
+
+    private static final boolean JCA_AES_GCM = AesGcmCipher.isAvailable();
+
+    private VoiceCiphers() {
+    }
+
+    /**
+     * Picks the best mode the voice server offered: AES-GCM when it can run on hardware-backed
+     * libsodium or the JDK provider, then XChaCha20-Poly1305, then legacy XSalsa20-Poly1305.
+     *
+     * @return the chosen mode, or null if none of the offered modes is supported
+     */
+    public static String selectMode(Collection<String> offered, LazySodiumJava sodium) {
+        if (offered.contains(AES256_GCM_RTPSIZE) && (JCA_AES_GCM || sodium.cryptoAeadAES256GCMIsAvailable())) {
+            return AES256_GCM_RTPSIZE;
+        }
+        if (offered.contains(XCHACHA20_POLY1305_RTPSIZE)) {
+            return XCHACHA20_POLY1305_RTPSIZE;
+        }
+        if (offered.contains(XSALSA20_POLY1305)) {
+            return XSALSA20_POLY1305;
+        }
+        return null;
+    }
+
+    /**
+     * AES-GCM prefers libsodium, which needs AES-NI but seals without allocating; the JDK
+     * provider is the fallback since it allocates on every packet.
+     */
+    public static VoiceCipher create(String mode, byte[] secretKey, LazySodiumJava sodium)
+            throws GeneralSecurityException {
+        return switch (mode) {
+            case AES256_GCM_RTPSIZE -> sodium.cryptoAeadAES256GCMIsAvailable() || !JCA_AES_GCM
+                    ? new SodiumAeadCipher(sodium, mode, secretKey)
+                    : new AesGcmCipher(secretKey);
+            case XCHACHA20_POLY1305_RTPSIZE -> new SodiumAeadCipher(sodium, mode, secretKey);
+            case XSALSA20_POLY1305 -> new XSalsa20Poly1305Cipher(sodium, secretKey);
+            default -> throw new GeneralSecurityException("Unsupported voice encryption mode: " + mode);
+        };
+    }
+}
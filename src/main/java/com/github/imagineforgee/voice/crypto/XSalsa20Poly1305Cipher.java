@@ -0,0 +1,60 @@
+package com.github.imagineforgee.voice.crypto;
+
+import com.goterl.lazysodium.LazySodiumJava;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Legacy {@code xsalsa20_poly1305} secretbox mode. The nonce is the RTP header padded with
+ * zeros, so nothing is appended to the packet.
+ */
+class XSalsa20Poly1305Cipher implements VoiceCipher {
+    private final LazySodiumJava sodium;
+    private final byte[] secretKey;
+    private final byte[] nonce = new byte[24];
+    private final byte[] cipherText = new byte[2048];
+    private final byte[] openNonce = new byte[24];
+    private final byte[] openCipherText = new byte[2048];
+
+    XSalsa20Poly1305Cipher(LazySodiumJava sodium, byte[] secretKey) {
+        this.sodium = sodium;
+        this.secretKey = secretKey;
+    }
+
+    @Override
+    public String getMode() {
+        return VoiceCiphers.XSALSA20_POLY1305;
+    }
+
+    @Override
+    public void seal(byte[] header, int headerLength, byte[] payload, int payloadLength, ByteBuffer packet)
+            throws GeneralSecurityException {
+        System.arraycopy(header, 0, nonce, 0, headerLength);
+
+        if (!sodium.cryptoSecretBoxEasy(cipherText, payload, payloadLength, nonce, secretKey)) {
+            throw new GeneralSecurityException("libsodium failed to encrypt with " + getMode());
+        }
+
+        packet.put(header, 0, headerLength);
+        packet.put(cipherText, 0, payloadLength + 16);
+    }
+
+    /**
+     * The nonce is always the fixed 12-byte RTP header, even when CSRCs extend {@code headerLength}.
+     */
+    @Override
+    public int open(byte[] packet, int length, int headerLength, byte[] out) throws GeneralSecurityException {
+        int cipherLength = length - headerLength;
+        if (cipherLength < 16) {
+            throw new GeneralSecurityException("Truncated packet: " + length + " bytes");
+        }
+        System.arraycopy(packet, 0, openNonce, 0, 12);
+        System.arraycopy(packet, headerLength, openCipherText, 0, cipherLength);
+
+        if (!sodium.cryptoSecretBoxOpenEasy(out, openCipherText, cipherLength, openNonce, secretKey)) {
+            throw new GeneralSecurityException("libsodium failed to decrypt with " + getMode());
+        }
+        return cipherLength - 16;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.imagineforgee.commands;
+
+import com.github.imagineforgee.dispatch.events.MessageCreateEvent;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExecutorTest {
+
+    @Test
+    void throwingCommandCountsAsFailed() throws Exception {
+        CommandExecutor executor = new CommandExecutor();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(executor.submit("boom", context("1"), () -> {
+            ran.countDown();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        awaitCount(executor, 1);
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(0, executor.getTimedOutCount());
+    }
+
+    @Test
+    void successfulCommandIsNotCountedAsFailed() throws Exception {
+        CommandExecutor executor = new CommandExecutor();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(executor.submit("ok", context("1"), ran::countDown));
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        awaitRunTime(executor, "ok");
+        assertEquals(0, executor.getFailedCount());
+    }
+
+    @Test
+    void rejectsOverTheUserLimit() throws Exception {
+        CommandExecutor executor = new CommandExecutor();
+        executor.setConcurrencyLimits(1, 8);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(executor.submit("slow", context("1"), () -> await(release)));
+        assertFalse(executor.submit("slow", context("1"), () -> { }));
+        assertTrue(executor.submit("slow", context("2"), () -> { }));
+        release.countDown();
+
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    private static CommandContext context(String authorId) {
+        JsonObject author = new JsonObject();
+        author.addProperty("id", authorId);
+        JsonObject data = new JsonObject();
+        data.addProperty("id", "100");
+        data.addProperty("channel_id", "200");
+        data.add("author", author);
+        return new CommandContext(new MessageCreateEvent(data), null);
+    }
+
+    // failures are counted after the command returns, on the command's own thread
+    private static void awaitCount(CommandExecutor executor, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (executor.getFailedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitRunTime(CommandExecutor executor, String commandName) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (executor.getRunTime(commandName).getCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
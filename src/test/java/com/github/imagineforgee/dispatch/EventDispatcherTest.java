@@ -0,0 +1,73 @@
+package com.github.imagineforgee.dispatch;
+
+import com.github.imagineforgee.dispatch.events.MessageCreateEvent;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDispatcherTest {
+
+    @Test
+    void slowSubscriberMissesNoMessagesButShedsDroppableEvents() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        dispatcher.registerParser("MESSAGE_CREATE", MessageCreateEvent.class, MessageCreateEvent::new);
+        dispatcher.registerParser("TYPING_START", TypingEvent.class, TypingEvent::new);
+        dispatcher.setDroppable("TYPING_START"::equals);
+
+        StalledSubscriber subscriber = new StalledSubscriber();
+        dispatcher.getEventFlux().subscribe(subscriber);
+
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.dispatch(EventPipelineTest.payload("MESSAGE_CREATE", i), 0);
+            dispatcher.dispatch(EventPipelineTest.payload("TYPING_START", i), 0);
+        }
+        assertTrue(dispatcher.getDroppedCount() > 0);
+
+        subscriber.catchUp();
+        assertEquals(1000, subscriber.messages.get());
+        assertEquals(2000 - dispatcher.getDroppedCount(), subscriber.received.get());
+    }
+
+    private static final class StalledSubscriber extends BaseSubscriber<Event> {
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // requests nothing until the test lets it catch up
+        }
+
+        @Override
+        protected void hookOnNext(Event event) {
+            received.incrementAndGet();
+            if (event instanceof MessageCreateEvent) messages.incrementAndGet();
+        }
+
+        void catchUp() {
+            upstream().request(Long.MAX_VALUE);
+        }
+    }
+
+    private static final class TypingEvent implements Event {
+        private final JsonObject data;
+
+        TypingEvent(JsonObject data) {
+            this.data = data;
+        }
+
+        @Override
+        public String getType() {
+            return "TYPING_START";
+        }
+
+        @Override
+        public JsonObject getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.imagineforgee.dispatch;
+
+import com.github.imagineforgee.gateway.GatewayPayload;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPipelineTest {
+
+    @Test
+    void saturatedLaneStillDeliversEveryMessage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> messages = Collections.synchronizedList(new ArrayList<>());
+        EventPipeline pipeline = new EventPipeline(1, 4, (payload, lane) -> {
+            awaitQuietly(release);
+            if ("MESSAGE_CREATE".equals(payload.getType())) {
+                messages.add(payload.getSequence());
+            }
+        });
+        pipeline.setStallWarning(Duration.ofMillis(20));
+
+        // the reader thread parks once the lane is full of messages, so submit from a stand-in
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                pipeline.submit(payload(i % 3 == 0 ? "TYPING_START" : "MESSAGE_CREATE", i));
+            }
+        });
+        reader.start();
+        Thread.sleep(100);
+        assertTrue(reader.isAlive(), "reader should be waiting on the stuck lane");
+
+        release.countDown();
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(reader.isAlive());
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            if (i % 3 != 0) expected.add(i);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (messages.size() < expected.size() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, messages);
+        assertNull(pipeline.getDroppedByType().get("MESSAGE_CREATE"));
+        assertTrue(pipeline.getDroppedByType().getOrDefault("TYPING_START", 0L) > 0);
+    }
+
+    @Test
+    void dropNewestDiscardsOnlyWhenFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventPipeline pipeline = new EventPipeline(1, 2, (payload, lane) -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        pipeline.setPolicy("GUILD_MEMBER_UPDATE", OverflowPolicy.DROP_NEWEST);
+
+        pipeline.submit(payload("GUILD_MEMBER_UPDATE", 0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++) {
+            pipeline.submit(payload("GUILD_MEMBER_UPDATE", i));
+        }
+        release.countDown();
+
+        // one held by the consumer, two queued
+        assertEquals(7, pipeline.getDroppedCount());
+    }
+
+    static GatewayPayload payload(String type, int sequence) {
+        JsonObject data = new JsonObject();
+        data.addProperty("guild_id", "1");
+        return new GatewayPayload(GatewayPayload.OP_DISPATCH, sequence, type, data);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
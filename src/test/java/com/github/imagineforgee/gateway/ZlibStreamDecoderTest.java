@@ -0,0 +1,120 @@
+package com.github.imagineforgee.gateway;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZlibStreamDecoderTest {
+    private static final Duration HANG_LIMIT = Duration.ofSeconds(5);
+
+    private Deflater deflater;
+    private ZlibStreamDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        deflater = new Deflater();
+        decoder = new ZlibStreamDecoder();
+    }
+
+    @Test
+    void inflatesConsecutiveMessagesFromOneStream() throws Exception {
+        assertTrue(decoder.feed(compress("{\"op\":10}", false)));
+        assertEquals("{\"op\":10}", read(decoder.inflate()));
+
+        assertTrue(decoder.feed(compress("{\"op\":11}", false)));
+        assertEquals("{\"op\":11}", read(decoder.inflate()));
+    }
+
+    @Test
+    void growsOutputForLargeMessages() throws Exception {
+        String large = "{\"d\":\"" + "x".repeat(200_000) + "\"}";
+        assertTrue(decoder.feed(compress(large, false)));
+        assertEquals(large, read(decoder.inflate()));
+    }
+
+    @Test
+    void waitsForSuffixAcrossSplitFrames() throws Exception {
+        ByteBuffer message = compress("{\"op\":0,\"t\":\"READY\"}", false);
+        int split = message.remaining() / 2;
+        ByteBuffer head = message.duplicate().limit(split);
+        ByteBuffer tail = message.duplicate().position(split);
+
+        assertFalse(decoder.feed(head));
+        assertTrue(decoder.feed(tail));
+        assertEquals("{\"op\":0,\"t\":\"READY\"}", read(decoder.inflate()));
+    }
+
+    @Test
+    void truncatedMessageReturnsWhatItHasWithoutHanging() {
+        String json = "{\"op\":0,\"d\":\"" + "abc".repeat(1000) + "\"}";
+        ByteBuffer message = compress(json, false);
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        assertFalse(decoder.feed(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length / 2))));
+
+        String partial = assertTimeoutPreemptively(HANG_LIMIT, () -> read(decoder.inflate()));
+        assertTrue(json.startsWith(partial));
+    }
+
+    @Test
+    void endedStreamDoesNotHangAndRejectsFurtherInput() throws Exception {
+        // a finished stream followed by more data leaves input behind that inflate() can never consume
+        decoder.feed(compress("{\"op\":7}", true));
+        assertTrue(decoder.feed(ByteBuffer.wrap(new byte[]{0, 0, (byte) 0xFF, (byte) 0xFF})));
+
+        assertEquals("{\"op\":7}", assertTimeoutPreemptively(HANG_LIMIT, () -> read(decoder.inflate())));
+
+        assertTrue(decoder.feed(ByteBuffer.wrap(new byte[]{0, 0, (byte) 0xFF, (byte) 0xFF})));
+        assertThrows(DataFormatException.class, decoder::inflate);
+    }
+
+    @Test
+    void resetStartsANewStream() throws Exception {
+        decoder.feed(compress("{\"op\":7}", true));
+        decoder.feed(ByteBuffer.wrap(new byte[]{0, 0, (byte) 0xFF, (byte) 0xFF}));
+        decoder.inflate();
+
+        decoder.reset();
+        deflater = new Deflater();
+        assertTrue(decoder.feed(compress("{\"op\":10}", false)));
+        assertEquals("{\"op\":10}", read(decoder.inflate()));
+    }
+
+    /**
+     * Deflates one message the way the gateway does, ending in a sync flush, or ends the stream.
+     */
+    private ByteBuffer compress(String json, boolean endStream) {
+        deflater.setInput(json.getBytes(StandardCharsets.UTF_8));
+        if (endStream) deflater.finish();
+        int flush = endStream ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+
+        byte[] out = new byte[json.length() + 1024];
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(out, length, out.length - length, flush);
+            if (length < out.length) break;
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+        return ByteBuffer.wrap(out, 0, length);
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] chunk = new char[4096];
+        int n;
+        while ((n = reader.read(chunk)) > 0) {
+            text.append(chunk, 0, n);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.imagineforgee.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(-1, map.put(42, 7, -1));
+        assertEquals(7, map.put(42, 8, -1));
+        assertEquals(8, map.get(42, -1));
+        assertTrue(map.containsKey(42));
+        assertEquals(1, map.size());
+
+        assertEquals(8, map.remove(42, -1));
+        assertEquals(-1, map.get(42, -1));
+        assertFalse(map.remove(42));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void rejectsReservedKey() {
+        assertThrows(IllegalArgumentException.class, () -> new LongLongMap().put(0, 1));
+    }
+
+    @Test
+    void reservedKeyIsNeverPresent() {
+        LongLongMap map = new LongLongMap();
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.get(0, -1));
+        assertFalse(map.remove(0));
+        assertEquals(-1, map.remove(0, -1));
+        assertEquals(0, map.size());
+
+        map.put(1, 1);
+        assertFalse(map.remove(0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeShiftsChainsThatWrapAroundTheTable() {
+        // 64 expected entries leave 8 slots per segment; pick keys of one segment whose probe
+        // chain starts in the last slot and continues at the front
+        LongLongMap map = new LongLongMap(64);
+        long[] lastSlot = keysWithHome(0, 7, 2);
+        long[] firstSlot = keysWithHome(0, 0, 1);
+        long a = lastSlot[0], b = lastSlot[1], c = firstSlot[0];
+
+        map.put(a, 1);
+        map.put(b, 2); // wraps to slot 0
+        map.put(c, 3); // displaced to slot 1
+        assertTrue(map.remove(a));
+
+        assertEquals(2, map.get(b, -1));
+        assertEquals(3, map.get(c, -1));
+        assertFalse(map.containsKey(a));
+
+        assertTrue(map.remove(b));
+        assertEquals(3, map.get(c, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void matchesHashMapThroughResizesAndRemovals() {
+        LongLongMap map = new LongLongMap(16);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(19);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assertEquals(removed == null ? -1 : removed, map.remove(key, -1));
+            } else {
+                long value = random.nextLong();
+                Long previous = expected.put(key, value);
+                assertEquals(previous == null ? -1 : previous, map.put(key, value, -1));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, -1)));
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(expected.keySet().iterator().next()));
+    }
+
+    static long[] keysWithHome(int segment, int slot, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            long hash = LongKeyTable.mix(key);
+            if ((hash >>> (64 - LongKeyTable.SEGMENT_BITS)) == segment && ((int) hash & 7) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
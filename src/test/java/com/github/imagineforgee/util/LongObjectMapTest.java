@@ -0,0 +1,101 @@
+package com.github.imagineforgee.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    @Test
+    void computeIfAbsentKeepsExistingValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertEquals("a", map.computeIfAbsent(5, k -> "a"));
+        assertEquals("a", map.computeIfAbsent(5, k -> "b"));
+        assertNull(map.computeIfAbsent(6, k -> null));
+        assertFalse(map.containsKey(6));
+    }
+
+    @Test
+    void conditionalRemoveOnlyRemovesTheExpectedValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        String current = new String("session");
+        String stale = new String("session");
+        map.put(7, current);
+
+        assertFalse(map.remove(7, stale));
+        assertSame(current, map.get(7));
+        assertFalse(map.remove(8, current));
+        assertTrue(map.remove(7, current));
+        assertFalse(map.containsKey(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void conditionalRemoveNeverRemovesAReplacement() throws InterruptedException {
+        LongObjectMap<Object> map = new LongObjectMap<>();
+        for (int round = 0; round < 2_000; round++) {
+            Object old = new Object();
+            Object replacement = new Object();
+            map.put(1, old);
+            Thread replacer = new Thread(() -> map.put(1, replacement));
+            replacer.start();
+            boolean removed = map.remove(1, old);
+            replacer.join();
+            // either the old value went first and the replacement was inserted after, or the remove missed
+            assertSame(replacement, map.get(1), "round " + round + ", removed=" + removed);
+        }
+    }
+
+    @Test
+    void reservedKeyIsNeverPresent() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertFalse(map.containsKey(0));
+        assertNull(map.get(0));
+        assertNull(map.remove(0));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "a"));
+        assertThrows(IllegalArgumentException.class, () -> map.computeIfAbsent(0, k -> "a"));
+    }
+
+    @Test
+    void removeShiftsChainsThatWrapAroundTheTable() {
+        LongObjectMap<String> map = new LongObjectMap<>(64);
+        long[] lastSlot = LongLongMapTest.keysWithHome(0, 7, 2);
+        long[] firstSlot = LongLongMapTest.keysWithHome(0, 0, 1);
+
+        map.put(lastSlot[0], "a");
+        map.put(lastSlot[1], "b");
+        map.put(firstSlot[0], "c");
+        assertEquals("a", map.remove(lastSlot[0]));
+
+        assertEquals("b", map.get(lastSlot[1]));
+        assertEquals("c", map.get(firstSlot[0]));
+        assertNull(map.get(lastSlot[0]));
+    }
+
+    @Test
+    void matchesHashMapThroughResizesAndRemovals() {
+        LongObjectMap<Integer> map = new LongObjectMap<>(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(21);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Integer value = random.nextInt();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.imagineforgee.voice;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameClockTest {
+
+    @Test
+    void throwingListenerIsUnregisteredAndTheClockKeepsTicking() throws InterruptedException {
+        FrameClock clock = new FrameClock("frame-clock-test");
+        AtomicInteger failing = new AtomicInteger();
+        CountDownLatch healthy = new CountDownLatch(5);
+
+        Disposable bad = clock.register(() -> {
+            failing.incrementAndGet();
+            throw new AssertionError("listener bug");
+        });
+        Disposable good = clock.register(healthy::countDown);
+        try {
+            assertTrue(healthy.await(2, TimeUnit.SECONDS), "clock stopped after a listener threw");
+            assertEquals(1, failing.get());
+        } finally {
+            bad.dispose();
+            good.dispose();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.imagineforgee.voice;
+
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpusFramePrefetcherTest {
+
+    @Test
+    void formatMismatchPlaysOutTheBufferAndFinishes() throws InterruptedException {
+        // three Opus frames, then the provider switches to PCM
+        ScriptedProvider provider = new ScriptedProvider(3);
+        CountDownLatch ended = new CountDownLatch(1);
+        AtomicInteger endCalls = new AtomicInteger();
+        OpusFramePrefetcher prefetcher = new OpusFramePrefetcher(provider, Duration.ofMillis(200), () -> {
+            endCalls.incrementAndGet();
+            ended.countDown();
+        });
+
+        prefetcher.start();
+        try {
+            assertTrue(ended.await(2, TimeUnit.SECONDS), "mismatch did not end the source");
+            assertFalse(prefetcher.isFinished());
+
+            // below the start threshold, but an exhausted source still flushes what it buffered
+            for (int i = 0; i < 3; i++) {
+                ByteBuffer frame = prefetcher.nextFrame();
+                assertNotNull(frame, "frame " + i);
+                assertEquals(100, frame.remaining());
+            }
+            assertNull(prefetcher.nextFrame());
+            assertTrue(prefetcher.isFinished());
+            assertEquals(0, prefetcher.getUnderruns());
+
+            Thread.sleep(50);
+            assertEquals(1, endCalls.get());
+            assertEquals(4, provider.calls.get(), "kept filling after the mismatch");
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    private static final class ScriptedProvider implements AudioFrameProvider {
+        private final int opusFrames;
+        private final byte[] payload = new byte[100];
+        final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedProvider(int opusFrames) {
+            this.opusFrames = opusFrames;
+        }
+
+        @Override
+        public boolean provide(MutableAudioFrame frame) {
+            AudioDataFormat format = calls.getAndIncrement() < opusFrames
+                    ? StandardAudioDataFormats.DISCORD_OPUS
+                    : StandardAudioDataFormats.DISCORD_PCM_S16_BE;
+            frame.setFormat(format);
+            frame.store(payload, 0, payload.length);
+            return true;
+        }
+
+        @Override
+        public boolean provide(MutableAudioFrame frame, long timeout, TimeUnit unit) {
+            return provide(frame);
+        }
+
+        @Override
+        public AudioFrame provide() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AudioFrame provide(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}